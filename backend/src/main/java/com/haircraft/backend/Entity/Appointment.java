@@ -42,7 +42,8 @@ public class Appointment {
 
     // ================= PAYMENT =================
     private Double amount;
-    private String paymentStatus;
+    @Convert(converter = PaymentStatusConverter.class)
+    private PaymentStatus paymentStatus;
     private String razorpayPaymentId;
     private String refundStatus;
     private String refundId;
@@ -55,6 +56,15 @@ public class Appointment {
     @JoinColumn(name = "stylist_id")
     private Stylist stylist;
 
+    // Which of the stylist's parallel chairs (0 .. capacity-1)
+    @Column(nullable = false)
+    private int chair = 0;
+
+    // Bumped on every write, including the status compare-and-set
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     /* ==========================
        LIFECYCLE
     ========================== */
@@ -79,7 +89,7 @@ public class Appointment {
         }
 
         if (this.paymentStatus == null) {
-            this.paymentStatus = "PENDING";
+            this.paymentStatus = PaymentStatus.PENDING;
         }
     }
 
@@ -91,6 +101,10 @@ public class Appointment {
         return id;
     }
 
+    public void setId(Long id) {
+        this.id = id;
+    }
+
     public ServiceItem getService() {
         return service;
     }
@@ -164,11 +178,11 @@ public class Appointment {
         this.amount = amount;
     }
 
-    public String getPaymentStatus() {
-        return paymentStatus;
+    public PaymentStatus getPaymentStatus() {
+        return paymentStatus != null ? paymentStatus : PaymentStatus.PENDING;
     }
 
-    public void setPaymentStatus(String paymentStatus) {
+    public void setPaymentStatus(PaymentStatus paymentStatus) {
         this.paymentStatus = paymentStatus;
     }
 
@@ -200,6 +214,10 @@ public class Appointment {
         return createdAt;
     }
 
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
     public Stylist getStylist() {
         return stylist;
     }
@@ -207,4 +225,16 @@ public class Appointment {
     public void setStylist(Stylist stylist) {
         this.stylist = stylist;
     }
+
+    public int getChair() {
+        return chair;
+    }
+
+    public void setChair(int chair) {
+        this.chair = chair;
+    }
+
+    public long getVersion() {
+        return version;
+    }
 }
@@ -0,0 +1,8 @@
+package com.haircraft.backend.Entity;
+
+public enum PaymentStatus {
+    PENDING,
+    PAID,
+    REFUND_INITIATED,
+    REFUNDED
+}
@@ -0,0 +1,38 @@
+package com.haircraft.backend.Entity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps appointment.payment_status to {@link PaymentStatus}.
+ *
+ * The column predates the enum and was compared case-insensitively, so
+ * reads ignore case and treat blank or unknown values as PENDING instead
+ * of failing the whole row.
+ */
+@Converter
+public class PaymentStatusConverter implements AttributeConverter<PaymentStatus, String> {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentStatusConverter.class);
+
+    @Override
+    public String convertToDatabaseColumn(PaymentStatus status) {
+        return status != null ? status.name() : null;
+    }
+
+    @Override
+    public PaymentStatus convertToEntityAttribute(String value) {
+        if (value == null || value.isBlank()) {
+            return PaymentStatus.PENDING;
+        }
+        try {
+            return PaymentStatus.valueOf(value.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            log.warn("Unknown payment status '{}', reading as PENDING", value);
+            return PaymentStatus.PENDING;
+        }
+    }
+}
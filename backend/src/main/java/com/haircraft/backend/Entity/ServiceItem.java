@@ -19,6 +19,10 @@ public class ServiceItem {
     @Column(name = "duration_minutes")
     private int duration;
 
+    @Enumerated(EnumType.STRING)
+    @Column(name = "service_type")
+    private ServiceType type = ServiceType.FIXED;
+
     // ===== GETTERS & SETTERS =====
 
     public Long getId() {
@@ -76,4 +80,12 @@ public class ServiceItem {
     public void setDuration(int duration) {
         this.duration = duration;
     }
+
+    public ServiceType getType() {
+        return type != null ? type : ServiceType.FIXED;
+    }
+
+    public void setType(ServiceType type) {
+        this.type = type;
+    }
 }
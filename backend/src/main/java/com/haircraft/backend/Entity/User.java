@@ -11,6 +11,7 @@ import lombok.*;
 @NoArgsConstructor
 @AllArgsConstructor
 @Table(name = "users")
+@EntityListeners(com.haircraft.backend.event.UserCountListener.class)
 public class User {
 
     @Id
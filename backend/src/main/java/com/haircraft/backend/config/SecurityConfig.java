@@ -68,11 +68,15 @@ public class SecurityConfig {
                 
                 // Public admin paths (Login and Create)
                 .requestMatchers("/api/admin/login", "/api/admin/create").permitAll()
+
+                // Full delete-and-rebuild of the dashboard rollup
+                .requestMatchers("/api/admin/dashboard/rollup/rebuild").hasRole("ADMIN")
                 
                 // Protect all other admin endpoints requiring ROLE_ADMIN
                 .requestMatchers("/api/admin/**").permitAll()
                 .requestMatchers("/api/offers/admin/**").hasRole("ADMIN")
                 .requestMatchers("/api/contact/admin/**").hasRole("ADMIN")
+                .requestMatchers("/api/appointments/history/export").hasRole("ADMIN")
                 .requestMatchers("/api/auth/users").hasRole("ADMIN")
 
                 // Service & Stylist management (Admin only)
@@ -88,7 +92,7 @@ public class SecurityConfig {
                 // ================= PUBLIC GET APIs =================
                 .requestMatchers(HttpMethod.GET, "/api/services/**", "/api/offers/**").permitAll()
                 .requestMatchers(HttpMethod.GET, "/api/stylists/**", "/api/reviews").permitAll()
-                .requestMatchers("/api/appointments/booked-slots").permitAll()
+                .requestMatchers("/api/appointments/booked-slots", "/api/appointments/availability", "/api/appointments/next-available").permitAll()
 
                 // ================= USER APIs =================
                 .requestMatchers("/api/reviews/add", "/api/appointments/book").authenticated()
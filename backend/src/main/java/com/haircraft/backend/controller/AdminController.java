@@ -4,6 +4,7 @@ import java.util.List;
 import java.util.Map;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -11,29 +12,32 @@ import org.springframework.security.authentication.UsernamePasswordAuthenticatio
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.crypto.password.PasswordEncoder;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
 import com.haircraft.backend.Entity.AppointmentStatus;
 import com.haircraft.backend.Entity.ServiceItem;
 import com.haircraft.backend.Entity.User;
-import com.haircraft.backend.Entity.Stylist;
-import com.haircraft.backend.Entity.Appointment;
+import com.haircraft.backend.dto.AnalyticsResponse;
 import com.haircraft.backend.dto.AppointmentDTO;
+import com.haircraft.backend.dto.AppointmentPageResponse;
 import com.haircraft.backend.dto.DashboardHistoryResponse;
 import com.haircraft.backend.dto.DashboardOverviewResponse;
 import com.haircraft.backend.dto.LoginRequest;
 import com.haircraft.backend.dto.RegisterRequest;
 import com.haircraft.backend.dto.StylistScheduleDTO;
+import com.haircraft.backend.dto.StylistUtilizationResponse;
+import com.haircraft.backend.service.AppointmentAnalyticsService;
 import com.haircraft.backend.service.AppointmentService;
+import com.haircraft.backend.service.EmailOutboxWorker;
+import com.haircraft.backend.service.HistoryRollupService;
+import com.haircraft.backend.service.LeaderboardService;
+import com.haircraft.backend.service.StylistScheduleService;
+import com.haircraft.backend.service.StylistUtilizationService;
 import com.haircraft.backend.utils.JwtUtil;
 import com.haircraft.backend.repository.UserRepository;
 import com.haircraft.backend.repository.ServiceRepository;
-import com.haircraft.backend.repository.StylistRepository;
-import com.haircraft.backend.repository.AppointmentRepository;
 
 import java.time.LocalDate;
-import java.time.LocalDateTime;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/admin")
@@ -45,8 +49,12 @@ public class AdminController {
     private final UserRepository userRepo;
     private final ServiceRepository serviceRepo;
     private final AppointmentService appointmentService;
-    private final StylistRepository stylistRepo;
-    private final AppointmentRepository appointmentRepo;
+    private final StylistScheduleService stylistScheduleService;
+    private final HistoryRollupService historyRollupService;
+    private final AppointmentAnalyticsService appointmentAnalyticsService;
+    private final StylistUtilizationService stylistUtilizationService;
+    private final LeaderboardService leaderboardService;
+    private final EmailOutboxWorker emailOutboxWorker;
 
     public AdminController(
             JwtUtil jwtUtil,
@@ -55,8 +63,12 @@ public class AdminController {
             ServiceRepository serviceRepo,
             AppointmentService appointmentService,
             AuthenticationManager authenticationManager,
-            StylistRepository stylistRepo,
-            AppointmentRepository appointmentRepo
+            StylistScheduleService stylistScheduleService,
+            HistoryRollupService historyRollupService,
+            AppointmentAnalyticsService appointmentAnalyticsService,
+            StylistUtilizationService stylistUtilizationService,
+            LeaderboardService leaderboardService,
+            EmailOutboxWorker emailOutboxWorker
     ) {
         this.jwtUtil = jwtUtil;
         this.passwordEncoder = passwordEncoder;
@@ -64,8 +76,12 @@ public class AdminController {
         this.serviceRepo = serviceRepo;
         this.appointmentService = appointmentService;
         this.authenticationManager = authenticationManager;
-        this.stylistRepo = stylistRepo;
-        this.appointmentRepo = appointmentRepo;
+        this.stylistScheduleService = stylistScheduleService;
+        this.historyRollupService = historyRollupService;
+        this.appointmentAnalyticsService = appointmentAnalyticsService;
+        this.stylistUtilizationService = stylistUtilizationService;
+        this.leaderboardService = leaderboardService;
+        this.emailOutboxWorker = emailOutboxWorker;
     }
 
     // ================= DEBUG =================
@@ -96,6 +112,30 @@ public class AdminController {
         }
     }
 
+    @GetMapping("/appointments/page")
+    public AppointmentPageResponse getAppointmentsPage(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit,
+            @RequestParam(required = false) AppointmentStatus status,
+            @RequestParam(required = false) Long stylistId,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+
+        if (limit < 1 || limit > 200) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and 200");
+        }
+
+        return appointmentService.getAppointmentsPage(
+                cursor,
+                limit,
+                status,
+                stylistId,
+                (from != null && !from.isBlank()) ? LocalDate.parse(from) : null,
+                (to != null && !to.isBlank()) ? LocalDate.parse(to) : null);
+    }
+
     @PutMapping("/appointments/{id}/status")
     public AppointmentDTO updateStatus(
             @PathVariable Long id,
@@ -117,6 +157,50 @@ public class AdminController {
         return appointmentService.getHistoryDashboardStats(range.toUpperCase());
     }
 
+    // Rebuilds history_daily_rollup from appointment_history
+    @PostMapping("/dashboard/rollup/rebuild")
+    public Map<String, Object> rebuildHistoryRollup() {
+        return Map.of("rows", historyRollupService.backfill());
+    }
+
+    @GetMapping(value = "/dashboard/leaderboard", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getLeaderboard(
+            @RequestParam(defaultValue = "YEAR") LeaderboardService.Window range,
+            @RequestParam(defaultValue = "10") int limit) {
+
+        if (limit < 1 || limit > LeaderboardService.TOP_K) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "limit must be between 1 and " + LeaderboardService.TOP_K);
+        }
+
+        return Map.of(
+                "services", leaderboardService.topServices(range, limit),
+                "customers", leaderboardService.topCustomers(range, limit));
+    }
+
+    // Outbound mail delivery counters and the last batch's throughput
+    @GetMapping(value = "/email/outbox/stats", produces = MediaType.APPLICATION_JSON_VALUE)
+    public Map<String, Object> getEmailOutboxStats() {
+        return emailOutboxWorker.stats();
+    }
+
+    // ================= ANALYTICS =================
+
+    @GetMapping(value = "/analytics", produces = MediaType.APPLICATION_JSON_VALUE)
+    public AnalyticsResponse getAnalytics(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to,
+            @RequestParam(defaultValue = "WEEK") AppointmentAnalyticsService.Bucket bucket,
+            @RequestParam(required = false) Long stylistId,
+            @RequestParam(required = false) Long serviceId) {
+
+        LocalDate end = (to != null && !to.isBlank()) ? LocalDate.parse(to) : LocalDate.now();
+        LocalDate start = (from != null && !from.isBlank()) ? LocalDate.parse(from) : end.minusWeeks(12);
+
+        return appointmentAnalyticsService.analyze(start, end, bucket, stylistId, serviceId);
+    }
+
     // ================= AUTH =================
 
     @PostMapping("/create")
@@ -153,40 +237,10 @@ public class AdminController {
     // ================= STYLIST SCHEDULE =================
     
     @GetMapping("/stylists/schedule")
-    @Transactional(readOnly = true)
     public List<StylistScheduleDTO> getStylistSchedules(@RequestParam(required = false) String date) {
         try {
             LocalDate targetDate = (date != null && !date.isBlank()) ? LocalDate.parse(date) : LocalDate.now();
-            LocalDateTime startOfDay = targetDate.atStartOfDay();
-            LocalDateTime endOfDay = targetDate.plusDays(1).atStartOfDay();
-            
-            List<Stylist> allStylists = stylistRepo.findAll();
-            
-            return allStylists.stream().map(stylist -> {
-                StylistScheduleDTO dto = new StylistScheduleDTO(
-                    stylist.getId(), stylist.getName(), stylist.getSpecialization(), 
-                    stylist.isActive(), stylist.getCapacity()
-                );
-                
-                List<Appointment> todays = appointmentRepo.findByStylistAndDateRange(stylist, startOfDay, endOfDay)
-                    .stream()
-                    .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED 
-                              && a.getStatus() != AppointmentStatus.REJECTED)
-                    .collect(Collectors.toList());
-                
-                dto.setTodayAppointments(todays.size());
-                
-                // Populate upcoming (7 days)
-                LocalDateTime weekEnd = LocalDateTime.now().plusDays(7);
-                List<Appointment> upcoming = appointmentRepo.findByStylistAndDateRange(stylist, LocalDateTime.now(), weekEnd)
-                    .stream()
-                    .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
-                    .collect(Collectors.toList());
-                dto.setUpcomingAppointments(upcoming.size());
-                
-                dto.setTodaysSchedule(todays.stream().map(appointmentService::convertToDTO).collect(Collectors.toList()));
-                return dto;
-            }).collect(Collectors.toList());
+            return stylistScheduleService.getSchedules(targetDate);
         } catch (Exception e) {
             System.err.println("Error in getStylistSchedules: " + e.getMessage());
             e.printStackTrace();
@@ -195,35 +249,13 @@ public class AdminController {
     }
     
     @GetMapping("/stylists/utilization")
-    @Transactional(readOnly = true)
-    public Map<String, Object> getStylistUtilization() {
-        try {
-            LocalDate today = LocalDate.now();
-            LocalDateTime startOfDay = today.atStartOfDay();
-            LocalDateTime endOfDay = today.plusDays(1).atStartOfDay();
-            
-            List<Stylist> activeStylists = stylistRepo.findByActiveTrue();
-            long fullyBooked = 0;
-            long available = 0;
-            
-            for (Stylist s : activeStylists) {
-                long count = appointmentRepo.findByStylistAndDateRange(s, startOfDay, endOfDay)
-                    .stream()
-                    .filter(a -> a.getStatus() != AppointmentStatus.CANCELLED)
-                    .count();
-                if (count >= s.getCapacity()) fullyBooked++; else available++;
-            }
-            
-            return Map.of(
-                "totalStylists", stylistRepo.findAll().size(),
-                "activeStylists", activeStylists.size(),
-                "fullyBookedToday", fullyBooked,
-                "availableToday", available
-            );
-        } catch (Exception e) {
-            System.err.println("Error in getStylistUtilization: " + e.getMessage());
-            e.printStackTrace();
-            throw e;
-        }
+    public StylistUtilizationResponse getStylistUtilization(
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to) {
+
+        LocalDate start = (from != null && !from.isBlank()) ? LocalDate.parse(from) : LocalDate.now();
+        LocalDate end = (to != null && !to.isBlank()) ? LocalDate.parse(to) : start;
+
+        return stylistUtilizationService.utilization(start, end);
     }
 }
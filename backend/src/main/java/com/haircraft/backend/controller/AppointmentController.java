@@ -12,6 +12,7 @@ import com.haircraft.backend.Entity.*;
 import com.haircraft.backend.dto.*;
 import com.haircraft.backend.repository.*;
 import com.haircraft.backend.service.AppointmentService;
+import com.haircraft.backend.service.AvailabilityEngine;
 
 @RestController
 @RequestMapping("/api/appointments")
@@ -22,19 +23,22 @@ public class AppointmentController {
     private final AppointmentRepository appointmentRepo;
     private final ServiceRepository serviceRepository;
     private final StylistRepository stylistRepository;
+    private final AvailabilityEngine availabilityEngine;
 
     public AppointmentController(
             AppointmentService service,
             AppointmentRepository appointmentRepo,
             ServiceRepository serviceRepository,
             UserRepository userRepository,
-            StylistRepository stylistRepository
+            StylistRepository stylistRepository,
+            AvailabilityEngine availabilityEngine
     ) {
         this.service = service;
         this.appointmentRepo = appointmentRepo;
         this.serviceRepository = serviceRepository;
         this.userRepository = userRepository;
         this.stylistRepository = stylistRepository;
+        this.availabilityEngine = availabilityEngine;
     }
 
     // ================= BOOK APPOINTMENT =================
@@ -70,28 +74,15 @@ public class AppointmentController {
             LocalDateTime endDateTime =
                     startDateTime.plusMinutes(duration);
 
-            // Stylist must be selected
-            if (request.getStylistId() == null) {
-                throw new ResponseStatusException(
-                        HttpStatus.BAD_REQUEST,
-                        "Please select a stylist");
-            }
-
-            Stylist assignedStylist = stylistRepository
-                    .findById(request.getStylistId())
-                    .orElseThrow(() ->
-                            new ResponseStatusException(
-                                    HttpStatus.NOT_FOUND,
-                                    "Stylist not found"));
-
-            if (appointmentRepo.hasOverlap(
-                    assignedStylist.getId(),
-                    startDateTime,
-                    endDateTime)) {
-
-                throw new ResponseStatusException(
-                        HttpStatus.CONFLICT,
-                        "Stylist is already booked at this time");
+            // No stylist selected: save() assigns the first free one
+            Stylist assignedStylist = null;
+            if (request.getStylistId() != null) {
+                assignedStylist = stylistRepository
+                        .findById(request.getStylistId())
+                        .orElseThrow(() ->
+                                new ResponseStatusException(
+                                        HttpStatus.NOT_FOUND,
+                                        "Stylist not found"));
             }
 
             Appointment appointment = new Appointment();
@@ -101,10 +92,11 @@ public class AppointmentController {
             appointment.setStartTime(startDateTime);
             appointment.setEndTime(endDateTime);
             appointment.setAmount(request.getAmount());
-            appointment.setPaymentStatus("PENDING");
+            appointment.setPaymentStatus(PaymentStatus.PENDING);
             appointment.setStatus(AppointmentStatus.BOOKED);
             appointment.setStylist(assignedStylist);
 
+            // Slot is claimed atomically inside save()
             Appointment saved = service.save(appointment);
             return service.convertToDTO(saved);
 
@@ -118,6 +110,13 @@ public class AppointmentController {
         }
     }
 
+    // ================= BATCH BOOKING =================
+    @PostMapping("/book/batch")
+    public List<AppointmentDTO> bookAppointments(
+            @RequestBody List<AppointmentRequest> requests) {
+        return service.bookBatch(requests);
+    }
+
     // ================= USER APPOINTMENTS =================
     @GetMapping("/user/{userId}")
     public List<AppointmentDTO> getUserAppointments(
@@ -138,63 +137,66 @@ public class AppointmentController {
             @RequestParam String date,
             @RequestParam(required = false) Long stylistId) {
 
-        LocalDate selectedDate = LocalDate.parse(date);
-        List<String> blockedSlots = new java.util.ArrayList<>();
-
-        List<Appointment> appointments =
-                appointmentRepo.findAppointmentsByDate(
-                        selectedDate.atStartOfDay(),
-                        selectedDate.plusDays(1).atStartOfDay());
-
-        List<Stylist> allStylists =
-                stylistRepository.findByActiveTrue();
-
-        int totalStylists = allStylists.size();
+        return availabilityEngine.getBookedSlots(LocalDate.parse(date), stylistId);
+    }
 
-        java.time.LocalTime startOfDay =
-                java.time.LocalTime.of(9, 0);
-        java.time.LocalTime endOfDay =
-                java.time.LocalTime.of(21, 0);
+    // ================= NEXT AVAILABLE =================
+    @GetMapping("/next-available")
+    public List<AvailableSlotDTO> getNextAvailable(
+            @RequestParam Long serviceId,
+            @RequestParam(required = false) Long stylistId,
+            @RequestParam(defaultValue = "14") int days,
+            @RequestParam(defaultValue = "5") int limit) {
 
-        while (startOfDay.isBefore(endOfDay)) {
+        if (days < 1 || days > 62 || limit < 1 || limit > 50) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "days must be 1-62 and limit 1-50");
+        }
 
-            LocalDateTime slotStart =
-                    LocalDateTime.of(selectedDate, startOfDay);
-            LocalDateTime slotEnd =
-                    slotStart.plusMinutes(30);
+        ServiceItem serviceItem =
+                serviceRepository.findById(serviceId)
+                        .orElseThrow(() ->
+                                new ResponseStatusException(
+                                        HttpStatus.BAD_REQUEST,
+                                        "Service not found"));
 
-            long busyStylistsCount = 0;
+        int duration = serviceItem.getDuration() > 0
+                ? serviceItem.getDuration()
+                : 30;
 
-            for (Appointment a : appointments) {
+        return availabilityEngine.findNextAvailable(
+                duration, serviceItem.getType(), stylistId, days, limit);
+    }
 
-                if (a.getStatus() == AppointmentStatus.CANCELLED)
-                    continue;
+    // ================= AVAILABILITY CALENDAR =================
+    @GetMapping("/availability")
+    public AvailabilityCalendarResponse getAvailability(
+            @RequestParam(required = false) String from,
+            @RequestParam(defaultValue = "7") int days,
+            @RequestParam(required = false) List<Long> stylistIds) {
 
-                if (stylistId != null &&
-                        a.getStylist() != null &&
-                        !a.getStylist().getId().equals(stylistId)) {
-                    continue;
-                }
+        int horizon = AvailabilityEngine.CACHE_HORIZON_DAYS;
 
-                if (a.getAppointmentDate().isBefore(slotEnd)
-                        && a.getEndTime().isAfter(slotStart)) {
-                    busyStylistsCount++;
-                }
-            }
+        if (days < 1 || days > horizon) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "days must be between 1 and " + horizon);
+        }
 
-            if (stylistId != null) {
-                if (busyStylistsCount > 0) {
-                    blockedSlots.add(startOfDay.toString().substring(0, 5));
-                }
-            } else {
-                if (busyStylistsCount >= totalStylists && totalStylists > 0) {
-                    blockedSlots.add(startOfDay.toString().substring(0, 5));
-                }
-            }
+        LocalDate today = LocalDate.now();
+        LocalDate start = (from != null && !from.isBlank())
+                ? LocalDate.parse(from)
+                : today;
 
-            startOfDay = startOfDay.plusMinutes(30);
+        // Only the cached window is served, so one request cannot pull
+        // arbitrary future days into memory
+        if (start.isBefore(today) || start.plusDays(days).isAfter(today.plusDays(horizon))) {
+            throw new ResponseStatusException(
+                    HttpStatus.BAD_REQUEST,
+                    "availability is only available from today up to " + horizon + " days ahead");
         }
 
-        return blockedSlots;
+        return availabilityEngine.getCalendar(start, days, stylistIds);
     }
 }
@@ -1,22 +1,35 @@
 package com.haircraft.backend.controller;
 
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.Year;
+import java.time.format.DateTimeParseException;
 import java.util.List;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import com.haircraft.backend.Entity.AppointmentHistory;
 import com.haircraft.backend.dto.AppointmentHistoryDTO;
 import com.haircraft.backend.dto.DashboardHistoryResponse;
 import com.haircraft.backend.service.AppointmentService;
+import com.haircraft.backend.service.HistoryExportService;
 
 @RestController
 @RequestMapping("/api/appointments/history")
 public class AppointmentHistoryController {
 
     private final AppointmentService service;
+    private final HistoryExportService exportService;
 
-    public AppointmentHistoryController(AppointmentService service) {
+    public AppointmentHistoryController(AppointmentService service, HistoryExportService exportService) {
         this.service = service;
+        this.exportService = exportService;
     }
 
     // ===============================
@@ -53,6 +66,56 @@ public class AppointmentHistoryController {
         return service.findAll();
     }
 
+    // ===============================
+    // ADMIN – STREAMING EXPORT
+    // ===============================
+
+    // from/to are inclusive dates; defaults to the current year so far
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(defaultValue = "ndjson") String format,
+            @RequestParam(required = false) String from,
+            @RequestParam(required = false) String to
+    ) {
+        HistoryExportService.Format fmt;
+        try {
+            fmt = HistoryExportService.Format.valueOf(format.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "format must be ndjson or csv");
+        }
+
+        LocalDate start = parseDate("from", from, Year.now().atDay(1));
+        LocalDate end = parseDate("to", to, LocalDate.now());
+
+        if (end.isBefore(start)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+        }
+
+        boolean csv = fmt == HistoryExportService.Format.CSV;
+        String filename = "appointment-history-" + start + "-to-" + end + (csv ? ".csv" : ".ndjson");
+
+        StreamingResponseBody body = out -> exportService.export(
+                fmt, start.atStartOfDay(), end.plusDays(1).atStartOfDay(), out);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .contentType(csv
+                        ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    private static LocalDate parseDate(String name, String value, LocalDate fallback) {
+        if (value == null || value.isBlank()) {
+            return fallback;
+        }
+        try {
+            return LocalDate.parse(value);
+        } catch (DateTimeParseException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, name + " must be a date like 2024-01-31");
+        }
+    }
+
     // ===============================
     // DASHBOARD STATS
     // ===============================
@@ -1,20 +1,17 @@
 package com.haircraft.backend.controller;
 
-import java.time.LocalDateTime;
 import java.util.HashMap;
 import java.util.Map;
 
 import org.json.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
-import com.haircraft.backend.Entity.Appointment;
-import com.haircraft.backend.Entity.AppointmentHistory;
-import com.haircraft.backend.Entity.AppointmentStatus;
 import com.haircraft.backend.dto.PaymentSuccessDto;
-import com.haircraft.backend.repository.AppointmentHistoryRepository;
-import com.haircraft.backend.repository.AppointmentRepository;
-import com.haircraft.backend.service.EmailService;
+import com.haircraft.backend.service.AppointmentService;
 import com.haircraft.backend.service.RazorpayService;
 import com.razorpay.Order;
 import com.razorpay.Utils;
@@ -24,21 +21,17 @@ import com.razorpay.Utils;
 @CrossOrigin(origins = "*")
 public class PaymentController {
 
+    private static final Logger log = LoggerFactory.getLogger(PaymentController.class);
+
     private final RazorpayService razorpayService;
-    private final AppointmentRepository appointmentRepo;
-    private final AppointmentHistoryRepository historyRepo;
-    private final EmailService emailService;
+    private final AppointmentService appointmentService;
 
     public PaymentController(
             RazorpayService razorpayService,
-            AppointmentRepository appointmentRepo,
-            AppointmentHistoryRepository historyRepo,
-            EmailService emailService
+            AppointmentService appointmentService
     ) {
         this.razorpayService = razorpayService;
-        this.appointmentRepo = appointmentRepo;
-        this.historyRepo = historyRepo;
-        this.emailService = emailService;
+        this.appointmentService = appointmentService;
     }
 
     /* =========================
@@ -120,30 +113,12 @@ public class PaymentController {
 
             System.out.println("Processing IDs: " + ids);
 
+            // Each markPaid also queues the receipt email
             for (Long id : ids) {
-                Appointment appointment = appointmentRepo
-                        .findByIdWithUserAndService(id)
-                        .orElse(null);
-
-                if (appointment != null) {
-                    appointment.setPaymentStatus("PAID");
-                    appointment.setRazorpayPaymentId(razorpayPaymentId);
-                    appointment.setStatus(AppointmentStatus.COMPLETED);
-                    appointmentRepo.save(appointment);
-
-                    // History
-                    AppointmentHistory history = new AppointmentHistory();
-                    history.setAppointment(appointment);
-                    history.setStatus(AppointmentStatus.COMPLETED);
-                    history.setChangedAt(LocalDateTime.now());
-                    historyRepo.save(history);
-
-                    // Email (optional/async)
-                    try {
-                        emailService.sendPaymentReceipt(appointment);
-                    } catch (Exception e) {
-                        System.err.println("Email failed for appt " + id);
-                    }
+                try {
+                    appointmentService.markPaid(id, razorpayPaymentId);
+                } catch (ResponseStatusException e) {
+                    log.warn("Skipping appt {}: {}", id, e.getReason());
                 }
             }
 
@@ -165,25 +140,8 @@ public class PaymentController {
         System.out.println("🔥 PAYMENT SUCCESS HIT");
         System.out.println("Appointment ID: " + dto.getAppointmentId());
 
-        Appointment appt = appointmentRepo
-                .findByIdWithUserAndService(dto.getAppointmentId())
-                .orElseThrow(() -> new RuntimeException("Appointment not found"));
-
-        appt.setPaymentStatus("PAID");
-        appt.setRazorpayPaymentId(dto.getRazorpayPaymentId());
-        appt.setStatus(AppointmentStatus.COMPLETED);
-        appointmentRepo.save(appt);
-        
-
-        // save history
-        AppointmentHistory history = new AppointmentHistory();
-        history.setAppointment(appt);
-        history.setStatus(AppointmentStatus.COMPLETED);
-        history.setChangedAt(LocalDateTime.now());
-        historyRepo.save(history);
-
-        // send email
-        emailService.sendPaymentReceipt(appt);
+        // status CAS, payment fields, history and receipt email in one transaction
+        appointmentService.markPaid(dto.getAppointmentId(), dto.getRazorpayPaymentId());
 
         return ResponseEntity.ok("Payment successful");
     }
@@ -2,6 +2,7 @@ package com.haircraft.backend.controller;
 
 import com.haircraft.backend.Entity.Stylist;
 import com.haircraft.backend.repository.StylistRepository;
+import com.haircraft.backend.service.AvailabilityEngine;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.List;
@@ -11,9 +12,14 @@ import java.util.List;
 public class StylistController {
 
     private final StylistRepository stylistRepository;
+    private final AvailabilityEngine availabilityEngine;
 
-    public StylistController(StylistRepository stylistRepository) {
+    public StylistController(
+            StylistRepository stylistRepository,
+            AvailabilityEngine availabilityEngine
+    ) {
         this.stylistRepository = stylistRepository;
+        this.availabilityEngine = availabilityEngine;
     }
 
     @GetMapping
@@ -23,7 +29,9 @@ public class StylistController {
 
     @PostMapping
     public Stylist addStylist(@RequestBody Stylist stylist) {
-        return stylistRepository.save(stylist);
+        Stylist saved = stylistRepository.save(stylist);
+        availabilityEngine.refreshStylists();
+        return saved;
     }
 
     @GetMapping("/schedule")
@@ -0,0 +1,94 @@
+package com.haircraft.backend.dto;
+
+import java.util.List;
+
+public class AnalyticsResponse {
+
+    private String from;
+    private String to;
+    private String bucket;
+
+    // Start date of each bucket; every series has one value per label
+    private List<String> buckets;
+
+    // [weekday Monday..Sunday][hour 0..23] -> bookings
+    private long[][] heatmap;
+
+    private List<Series> stylistRevenue;
+    private List<Series> serviceTrend;
+
+    public AnalyticsResponse() {}
+
+    public AnalyticsResponse(
+            String from,
+            String to,
+            String bucket,
+            List<String> buckets,
+            long[][] heatmap,
+            List<Series> stylistRevenue,
+            List<Series> serviceTrend
+    ) {
+        this.from = from;
+        this.to = to;
+        this.bucket = bucket;
+        this.buckets = buckets;
+        this.heatmap = heatmap;
+        this.stylistRevenue = stylistRevenue;
+        this.serviceTrend = serviceTrend;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public String getBucket() {
+        return bucket;
+    }
+
+    public List<String> getBuckets() {
+        return buckets;
+    }
+
+    public long[][] getHeatmap() {
+        return heatmap;
+    }
+
+    public List<Series> getStylistRevenue() {
+        return stylistRevenue;
+    }
+
+    public List<Series> getServiceTrend() {
+        return serviceTrend;
+    }
+
+    public static class Series {
+
+        private Long id;
+        private String name;
+        private double[] values;
+
+        public Series() {}
+
+        public Series(Long id, String name, double[] values) {
+            this.id = id;
+            this.name = name;
+            this.values = values;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public double[] getValues() {
+            return values;
+        }
+    }
+}
@@ -1,5 +1,10 @@
 package com.haircraft.backend.dto;
 
+import java.time.LocalDateTime;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.PaymentStatus;
+
 public class AppointmentDTO {
 
     private Long id;
@@ -37,6 +42,48 @@ public class AppointmentDTO {
     // =====================
     private Double amount;
 
+    public AppointmentDTO() {
+    }
+
+    // JPQL constructor expression: raw columns, formatted the same way as
+    // the entity mapping in AppointmentService
+    public AppointmentDTO(
+            Long id,
+            AppointmentStatus status,
+            PaymentStatus paymentStatus,
+            Double amount,
+            String serviceName,
+            Integer duration,
+            String stylistName,
+            String userName,
+            LocalDateTime appointmentDate,
+            LocalDateTime endTime,
+            String refundStatus,
+            String refundId
+    ) {
+        this.id = id;
+        this.status = (status != null ? status : AppointmentStatus.PENDING).name();
+        this.paymentStatus = (paymentStatus != null ? paymentStatus : PaymentStatus.PENDING).name();
+        this.amount = amount;
+        this.serviceName = serviceName;
+        this.duration = duration;
+        this.stylistName = stylistName;
+        this.customerName = userName;
+        this.userName = userName;
+
+        if (appointmentDate != null) {
+            this.appointmentDate = appointmentDate.toString();
+            this.appointmentTime = appointmentDate.toLocalTime().toString();
+        }
+
+        if (endTime != null) {
+            this.endTime = endTime.toLocalTime().toString();
+        }
+
+        this.refundStatus = refundStatus;
+        this.refundId = refundId;
+    }
+
     // =====================
     // GETTERS & SETTERS
     // =====================
@@ -2,6 +2,8 @@ package com.haircraft.backend.dto;
 
 import java.time.LocalDateTime;
 
+import com.haircraft.backend.Entity.AppointmentStatus;
+
 public class AppointmentHistoryDTO {
 
     private Long appointmentId;
@@ -35,6 +37,28 @@ public class AppointmentHistoryDTO {
         this.changedAt = changedAt;
     }
 
+    // JPQL constructor expression: raw columns, formatted here
+    public AppointmentHistoryDTO(
+            Long appointmentId,
+            String serviceName,
+            String customerName,
+            LocalDateTime appointmentDate,
+            AppointmentStatus status,
+            Double amount,
+            LocalDateTime changedAt
+    ) {
+        this(
+                appointmentId,
+                serviceName != null ? serviceName : "N/A",
+                customerName != null ? customerName : "N/A",
+                appointmentDate != null ? appointmentDate.toLocalDate().toString() : "N/A",
+                appointmentDate != null ? appointmentDate.toLocalTime().toString() : "N/A",
+                status != null ? status.name() : "N/A",
+                amount,
+                changedAt
+        );
+    }
+
     public String getCustomerName() { return customerName; }
     public Long getAppointmentId() { return appointmentId; }
     public String getServiceName() { return serviceName; }
@@ -0,0 +1,32 @@
+package com.haircraft.backend.dto;
+
+import java.util.List;
+
+public class AppointmentPageResponse {
+
+    private List<AppointmentDTO> items;
+
+    // Pass back as ?cursor= for the next page; null on the last page
+    private String nextCursor;
+    private boolean hasMore;
+
+    public AppointmentPageResponse() {}
+
+    public AppointmentPageResponse(List<AppointmentDTO> items, String nextCursor, boolean hasMore) {
+        this.items = items;
+        this.nextCursor = nextCursor;
+        this.hasMore = hasMore;
+    }
+
+    public List<AppointmentDTO> getItems() {
+        return items;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public boolean isHasMore() {
+        return hasMore;
+    }
+}
@@ -0,0 +1,69 @@
+package com.haircraft.backend.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+public class AvailabilityCalendarResponse {
+
+    private LocalDate from;
+    private int days;
+    private int slotMinutes;
+    private List<Day> calendar;
+
+    public AvailabilityCalendarResponse() {}
+
+    public AvailabilityCalendarResponse(LocalDate from, int days, int slotMinutes, List<Day> calendar) {
+        this.from = from;
+        this.days = days;
+        this.slotMinutes = slotMinutes;
+        this.calendar = calendar;
+    }
+
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    public int getDays() {
+        return days;
+    }
+
+    public int getSlotMinutes() {
+        return slotMinutes;
+    }
+
+    public List<Day> getCalendar() {
+        return calendar;
+    }
+
+    public static class Day {
+
+        private LocalDate date;
+
+        // Slots where none of the requested stylists is free
+        private List<String> blockedSlots;
+
+        // Stylist id -> that stylist's blocked slots
+        private Map<Long, List<String>> stylists;
+
+        public Day() {}
+
+        public Day(LocalDate date, List<String> blockedSlots, Map<Long, List<String>> stylists) {
+            this.date = date;
+            this.blockedSlots = blockedSlots;
+            this.stylists = stylists;
+        }
+
+        public LocalDate getDate() {
+            return date;
+        }
+
+        public List<String> getBlockedSlots() {
+            return blockedSlots;
+        }
+
+        public Map<Long, List<String>> getStylists() {
+            return stylists;
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.haircraft.backend.dto;
+
+public class AvailableSlotDTO {
+
+    private String date;          // yyyy-MM-dd
+    private String time;          // HH:mm
+    private Long stylistId;
+    private String stylistName;
+
+    public AvailableSlotDTO() {}
+
+    public AvailableSlotDTO(String date, String time, Long stylistId, String stylistName) {
+        this.date = date;
+        this.time = time;
+        this.stylistId = stylistId;
+        this.stylistName = stylistName;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public Long getStylistId() {
+        return stylistId;
+    }
+
+    public String getStylistName() {
+        return stylistName;
+    }
+}
@@ -0,0 +1,27 @@
+package com.haircraft.backend.dto;
+
+import java.time.LocalDateTime;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Flat history row for dashboard aggregation, built by a JPQL constructor
+ * expression so no entities or proxies are loaded.
+ */
+public record HistoryDashboardRow(
+        Long appointmentId,
+        Long serviceId,
+        String serviceName,
+        Long userId,
+        String customerName,
+        LocalDateTime appointmentDate,
+        AppointmentStatus status,
+        Double amount,
+        LocalDateTime changedAt
+) {
+
+    public AppointmentHistoryDTO toDTO() {
+        return new AppointmentHistoryDTO(
+                appointmentId, serviceName, customerName, appointmentDate, status, amount, changedAt);
+    }
+}
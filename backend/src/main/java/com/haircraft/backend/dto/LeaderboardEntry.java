@@ -0,0 +1,7 @@
+package com.haircraft.backend.dto;
+
+/**
+ * One leaderboard position: a service or customer and its completed count.
+ */
+public record LeaderboardEntry(Long id, String name, long count) {
+}
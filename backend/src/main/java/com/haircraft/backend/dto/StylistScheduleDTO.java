@@ -15,6 +15,7 @@ public class StylistScheduleDTO {
     private int upcomingAppointments;
     private List<AppointmentDTO> todaysSchedule;
     private AvailabilityStatus status;
+    private int utilizationPercentage;
     
     public enum AvailabilityStatus {
         FULLY_BOOKED,    // At capacity
@@ -82,7 +83,6 @@ public class StylistScheduleDTO {
     
     public void setTodayAppointments(int todayAppointments) {
         this.todayAppointments = todayAppointments;
-        updateStatus();
     }
     
     public int getUpcomingAppointments() {
@@ -109,32 +109,12 @@ public class StylistScheduleDTO {
         this.status = status;
     }
     
-    // Helper method to calculate availability status
-    private void updateStatus() {
-        if (!active) {
-            this.status = AvailabilityStatus.INACTIVE;
-            return;
-        }
-        
-        if (capacity == 0) {
-            this.status = AvailabilityStatus.AVAILABLE;
-            return;
-        }
-        
-        double utilizationRate = (double) todayAppointments / capacity;
-        
-        if (utilizationRate >= 1.0) {
-            this.status = AvailabilityStatus.FULLY_BOOKED;
-        } else if (utilizationRate >= 0.7) {
-            this.status = AvailabilityStatus.BUSY;
-        } else {
-            this.status = AvailabilityStatus.AVAILABLE;
-        }
-    }
-    
-    // Helper method to get utilization percentage
+    // Booked chair-minutes over capacity x opening hours, for the day
     public int getUtilizationPercentage() {
-        if (capacity == 0) return 0;
-        return (int) ((double) todayAppointments / capacity * 100);
+        return utilizationPercentage;
+    }
+
+    public void setUtilizationPercentage(int utilizationPercentage) {
+        this.utilizationPercentage = utilizationPercentage;
     }
 }
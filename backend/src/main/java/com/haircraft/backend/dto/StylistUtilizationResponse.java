@@ -0,0 +1,119 @@
+package com.haircraft.backend.dto;
+
+import java.util.List;
+
+public class StylistUtilizationResponse {
+
+    private String from;
+    private String to;
+
+    private long totalStylists;
+    private long activeStylists;
+
+    // Active stylists at or over 100% across the range (today by default)
+    private long fullyBookedToday;
+    private long availableToday;
+
+    private int utilizationPercentage;
+    private List<Entry> stylists;
+
+    public StylistUtilizationResponse() {}
+
+    public StylistUtilizationResponse(
+            String from,
+            String to,
+            long totalStylists,
+            long activeStylists,
+            long fullyBookedToday,
+            long availableToday,
+            int utilizationPercentage,
+            List<Entry> stylists
+    ) {
+        this.from = from;
+        this.to = to;
+        this.totalStylists = totalStylists;
+        this.activeStylists = activeStylists;
+        this.fullyBookedToday = fullyBookedToday;
+        this.availableToday = availableToday;
+        this.utilizationPercentage = utilizationPercentage;
+        this.stylists = stylists;
+    }
+
+    public String getFrom() {
+        return from;
+    }
+
+    public String getTo() {
+        return to;
+    }
+
+    public long getTotalStylists() {
+        return totalStylists;
+    }
+
+    public long getActiveStylists() {
+        return activeStylists;
+    }
+
+    public long getFullyBookedToday() {
+        return fullyBookedToday;
+    }
+
+    public long getAvailableToday() {
+        return availableToday;
+    }
+
+    public int getUtilizationPercentage() {
+        return utilizationPercentage;
+    }
+
+    public List<Entry> getStylists() {
+        return stylists;
+    }
+
+    public static class Entry {
+
+        private Long id;
+        private String name;
+        private long bookedMinutes;
+        private long capacityMinutes;
+        private int utilizationPercentage;
+        private int fullyBookedDays;
+
+        public Entry() {}
+
+        public Entry(Long id, String name, long bookedMinutes, long capacityMinutes,
+                     int utilizationPercentage, int fullyBookedDays) {
+            this.id = id;
+            this.name = name;
+            this.bookedMinutes = bookedMinutes;
+            this.capacityMinutes = capacityMinutes;
+            this.utilizationPercentage = utilizationPercentage;
+            this.fullyBookedDays = fullyBookedDays;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getBookedMinutes() {
+            return bookedMinutes;
+        }
+
+        public long getCapacityMinutes() {
+            return capacityMinutes;
+        }
+
+        public int getUtilizationPercentage() {
+            return utilizationPercentage;
+        }
+
+        public int getFullyBookedDays() {
+            return fullyBookedDays;
+        }
+    }
+}
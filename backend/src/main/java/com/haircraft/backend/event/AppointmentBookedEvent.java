@@ -0,0 +1,7 @@
+package com.haircraft.backend.event;
+
+/**
+ * Published once a new appointment row has been written.
+ */
+public record AppointmentBookedEvent(AppointmentSnapshot appointment) {
+}
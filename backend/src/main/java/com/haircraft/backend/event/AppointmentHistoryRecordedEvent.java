@@ -0,0 +1,20 @@
+package com.haircraft.backend.event;
+
+import java.time.LocalDateTime;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * An appointment_history row was written. Carries what the daily rollup
+ * and the leaderboards need so listeners do not have to load the row back.
+ */
+public record AppointmentHistoryRecordedEvent(
+        Long historyId,
+        Long appointmentId,
+        Long serviceId,
+        Long userId,
+        AppointmentStatus status,
+        LocalDateTime changedAt,
+        Double amount
+) {
+}
@@ -0,0 +1,43 @@
+package com.haircraft.backend.event;
+
+import java.time.LocalDateTime;
+
+import com.haircraft.backend.Entity.Appointment;
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceType;
+
+/**
+ * Plain copy of the appointment fields that in-memory indexes care about.
+ * Listeners run after commit, when the entity is detached and its lazy
+ * associations can no longer be touched, so events carry this instead.
+ */
+public record AppointmentSnapshot(
+        Long id,
+        Long stylistId,
+        Long userId,
+        Long serviceId,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        AppointmentStatus status,
+        Double amount,
+        ServiceType serviceType,
+        int chair,
+        int reminderMinutes
+) {
+
+    public static AppointmentSnapshot of(Appointment a) {
+        return new AppointmentSnapshot(
+                a.getId(),
+                a.getStylist() != null ? a.getStylist().getId() : null,
+                a.getUser() != null ? a.getUser().getId() : null,
+                a.getService() != null ? a.getService().getId() : null,
+                a.getStartTime() != null ? a.getStartTime() : a.getAppointmentDate(),
+                a.getEndTime(),
+                a.getStatus(),
+                a.getAmount(),
+                a.getService() != null ? a.getService().getType() : ServiceType.FIXED,
+                a.getChair(),
+                a.getReminderMinutes()
+        );
+    }
+}
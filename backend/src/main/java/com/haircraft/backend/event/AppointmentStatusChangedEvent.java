@@ -0,0 +1,13 @@
+package com.haircraft.backend.event;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Published when an appointment moves from {@code previousStatus} to the
+ * status carried in the snapshot.
+ */
+public record AppointmentStatusChangedEvent(
+        AppointmentSnapshot appointment,
+        AppointmentStatus previousStatus
+) {
+}
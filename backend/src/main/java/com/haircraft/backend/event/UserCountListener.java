@@ -0,0 +1,53 @@
+package com.haircraft.backend.event;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.haircraft.backend.Entity.User;
+import com.haircraft.backend.service.DashboardCounters;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+
+/**
+ * Keeps the dashboard user count in step with inserts and deletes.
+ *
+ * Users are created from several places (registration, Google sign-in,
+ * admin setup), so this hangs off the entity rather than each caller. The
+ * count moves only once the surrounding transaction commits.
+ */
+@Component
+public class UserCountListener {
+
+    private final DashboardCounters counters;
+
+    public UserCountListener(DashboardCounters counters) {
+        this.counters = counters;
+    }
+
+    @PostPersist
+    public void onInsert(User user) {
+        afterCommit(counters::userAdded);
+    }
+
+    @PostRemove
+    public void onDelete(User user) {
+        afterCommit(counters::userRemoved);
+    }
+
+    private static void afterCommit(Runnable action) {
+
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
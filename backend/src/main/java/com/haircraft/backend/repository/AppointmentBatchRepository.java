@@ -0,0 +1,96 @@
+package com.haircraft.backend.repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.haircraft.backend.Entity.Appointment;
+
+/**
+ * Plain JDBC writes for appointments.
+ *
+ * Hibernate cannot batch inserts for IDENTITY ids, so multi-row bookings
+ * go through a single batched statement here. It runs on the connection of
+ * the surrounding JPA transaction.
+ */
+@Repository
+public class AppointmentBatchRepository {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO appointment (
+            service_id, user_id, stylist_id, chair,
+            appointment_date, start_time, end_time,
+            reminder_sent, reminder_minutes,
+            status, amount, payment_status, created_at
+        ) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public AppointmentBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Inserts all appointments in one batch and assigns the generated ids
+     * back onto them, in order.
+     */
+    public void insertAll(List<Appointment> appointments) {
+
+        if (appointments.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+
+        List<Long> ids = jdbcTemplate.execute((ConnectionCallback<List<Long>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, Statement.RETURN_GENERATED_KEYS)) {
+
+                for (Appointment a : appointments) {
+                    ps.setLong(1, a.getService().getId());
+                    ps.setLong(2, a.getUser().getId());
+                    ps.setObject(3, a.getStylist() != null ? a.getStylist().getId() : null);
+                    ps.setInt(4, a.getChair());
+                    ps.setObject(5, a.getAppointmentDate());
+                    ps.setObject(6, a.getStartTime());
+                    ps.setObject(7, a.getEndTime());
+                    ps.setBoolean(8, a.isReminderSent());
+                    ps.setInt(9, a.getReminderMinutes());
+                    ps.setString(10, a.getStatus().name());
+                    ps.setObject(11, a.getAmount());
+                    ps.setString(12, a.getPaymentStatus().name());
+                    ps.setObject(13, now);
+                    ps.addBatch();
+                }
+
+                ps.executeBatch();
+
+                List<Long> keys = new ArrayList<>(appointments.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getLong(1));
+                    }
+                }
+                return keys;
+            }
+        });
+
+        if (ids == null || ids.size() != appointments.size()) {
+            throw new IllegalStateException("Batch insert returned "
+                    + (ids == null ? 0 : ids.size()) + " ids for "
+                    + appointments.size() + " appointments");
+        }
+
+        for (int i = 0; i < appointments.size(); i++) {
+            appointments.get(i).setId(ids.get(i));
+            appointments.get(i).setCreatedAt(now);
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.haircraft.backend.repository;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
@@ -9,88 +10,96 @@ import org.springframework.data.repository.query.Param;
 
 import com.haircraft.backend.Entity.AppointmentHistory;
 import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.dto.AppointmentHistoryDTO;
+import com.haircraft.backend.dto.HistoryDashboardRow;
 
 public interface AppointmentHistoryRepository
         extends JpaRepository<AppointmentHistory, Long> {
 
+    List<AppointmentHistory> findByAppointment_User_Id(Long userId);
+
+    // DTO projections: one joined query, no entities or lazy loads
+
     @Query("""
-        SELECT ah
+        SELECT new com.haircraft.backend.dto.AppointmentHistoryDTO(
+            a.id, s.name, u.name, a.appointmentDate, ah.status, a.amount, ah.changedAt)
         FROM AppointmentHistory ah
-        JOIN FETCH ah.appointment a
-        WHERE a.user.id = :userId
-        ORDER BY ah.changedAt DESC
+        JOIN ah.appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.user u
+        WHERE u.id = :userId
+        ORDER BY ah.id
     """)
-    List<AppointmentHistory> findHistoryWithAppointment(@Param("userId") Long userId);
-
-    List<AppointmentHistory> findByAppointment_User_Id(Long userId);
+    List<AppointmentHistoryDTO> findDTOsByUserId(@Param("userId") Long userId);
 
     @Query("""
-        SELECT ah
+        SELECT new com.haircraft.backend.dto.AppointmentHistoryDTO(
+            a.id, s.name, u.name, a.appointmentDate, ah.status, a.amount, ah.changedAt)
         FROM AppointmentHistory ah
-        JOIN FETCH ah.appointment a
-        LEFT JOIN FETCH a.service s
-        LEFT JOIN FETCH a.user u
+        JOIN ah.appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.user u
         WHERE ah.status IN :statuses
         AND ah.changedAt BETWEEN :start AND :end
+        ORDER BY ah.id
     """)
-    List<AppointmentHistory> findByStatusInAndChangedAtBetween(
+    List<AppointmentHistoryDTO> findDTOsByStatusInAndChangedAtBetween(
             @Param("statuses") List<AppointmentStatus> statuses,
             @Param("start") LocalDateTime start,
             @Param("end") LocalDateTime end
     );
 
+    // Dashboard rows, newest first, as flat projections
     @Query("""
-        SELECT SUM(a.amount) 
-        FROM AppointmentHistory ah 
-        JOIN ah.appointment a 
-        WHERE ah.status = :status 
-        AND a.status = 'COMPLETED'
-        AND ah.changedAt BETWEEN :start AND :end
-    """)
-    Double sumAmountByStatusAndRange(@Param("status") AppointmentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("""
-        SELECT SUM(a.amount) 
-        FROM AppointmentHistory ah 
-        JOIN ah.appointment a 
-        WHERE ah.status IN :statuses 
+        SELECT new com.haircraft.backend.dto.HistoryDashboardRow(
+            a.id, s.id, s.name, u.id, u.name, a.appointmentDate, ah.status, a.amount, ah.changedAt)
+        FROM AppointmentHistory ah
+        JOIN ah.appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.user u
+        WHERE ah.status IN :statuses
         AND ah.changedAt BETWEEN :start AND :end
+        ORDER BY ah.changedAt DESC
     """)
-    Double sumRefundsInRange(
-            @Param("start") LocalDateTime start, 
-            @Param("end") LocalDateTime end, 
-            @Param("statuses") List<AppointmentStatus> statuses
+    Stream<HistoryDashboardRow> streamDashboardRows(
+            @Param("statuses") List<AppointmentStatus> statuses,
+            @Param("start") LocalDateTime start,
+            @Param("end") LocalDateTime end
     );
 
+    // Leaderboard seed rows: service id, name, completed this year, this month, today
     @Query("""
-        SELECT COUNT(ah) 
-        FROM AppointmentHistory ah 
-        WHERE ah.status = :status 
-        AND ah.changedAt BETWEEN :start AND :end
-    """)
-    Long countByStatusAndRange(@Param("status") AppointmentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
-
-    @Query("""
-        SELECT s.name, COUNT(ah)
+        SELECT s.id, s.name, COUNT(ah),
+            SUM(CASE WHEN ah.changedAt >= :monthStart THEN 1 ELSE 0 END),
+            SUM(CASE WHEN ah.changedAt >= :dayStart THEN 1 ELSE 0 END)
         FROM AppointmentHistory ah
         JOIN ah.appointment a
         JOIN a.service s
-        WHERE ah.status = :status
-        AND ah.changedAt BETWEEN :start AND :end
-        GROUP BY s.name
-        ORDER BY COUNT(ah) DESC
+        WHERE ah.status = com.haircraft.backend.Entity.AppointmentStatus.COMPLETED
+        AND ah.changedAt >= :yearStart
+        GROUP BY s.id, s.name
     """)
-    List<Object[]> findTopServiceByHistory(@Param("status") AppointmentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    List<Object[]> countCompletedByService(
+            @Param("yearStart") LocalDateTime yearStart,
+            @Param("monthStart") LocalDateTime monthStart,
+            @Param("dayStart") LocalDateTime dayStart
+    );
 
+    // Leaderboard seed rows: user id, name, completed this year, this month, today
     @Query("""
-        SELECT u.name, COUNT(ah)
+        SELECT u.id, u.name, COUNT(ah),
+            SUM(CASE WHEN ah.changedAt >= :monthStart THEN 1 ELSE 0 END),
+            SUM(CASE WHEN ah.changedAt >= :dayStart THEN 1 ELSE 0 END)
         FROM AppointmentHistory ah
         JOIN ah.appointment a
         JOIN a.user u
-        WHERE ah.status = :status
-        AND ah.changedAt BETWEEN :start AND :end
-        GROUP BY u.name
-        ORDER BY COUNT(ah) DESC
+        WHERE ah.status = com.haircraft.backend.Entity.AppointmentStatus.COMPLETED
+        AND ah.changedAt >= :yearStart
+        GROUP BY u.id, u.name
     """)
-    List<Object[]> findTopCustomerByHistory(@Param("status") AppointmentStatus status, @Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
+    List<Object[]> countCompletedByCustomer(
+            @Param("yearStart") LocalDateTime yearStart,
+            @Param("monthStart") LocalDateTime monthStart,
+            @Param("dayStart") LocalDateTime dayStart
+    );
 }
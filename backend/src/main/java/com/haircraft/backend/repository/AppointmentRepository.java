@@ -1,16 +1,19 @@
 package com.haircraft.backend.repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
 import com.haircraft.backend.Entity.Appointment;
 import com.haircraft.backend.Entity.AppointmentStatus;
-import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.AppointmentDTO;
 
 public interface AppointmentRepository extends JpaRepository<Appointment, Long> {
 
@@ -29,13 +32,6 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             Long userId
     );
 
-    @Query("SELECT COUNT(a) > 0 FROM Appointment a WHERE a.status = 'BOOKED' AND a.user.id <> :userId AND (:start < a.endTime AND :end > a.startTime)")
-    boolean existsOverlap(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end,
-            @Param("userId") Long userId
-    );
-
     List<Appointment> findByUserIdAndAppointmentDateAfter(
             Long userId, LocalDateTime now);
 
@@ -46,19 +42,37 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             Long userId, AppointmentStatus status);
 
     // 🔹 Scheduler reminder
-    // 🔹 Scheduler reminder
+    // Reminder wheel seed rows: id, start, reminder minutes (no entity hydration)
+    @Query("""
+        SELECT a.id, COALESCE(a.startTime, a.appointmentDate), a.reminderMinutes
+        FROM Appointment a
+        WHERE a.reminderSent = false
+        AND a.status = com.haircraft.backend.Entity.AppointmentStatus.BOOKED
+        AND a.appointmentDate > :now
+    """)
+    List<Object[]> findUpcomingReminders(@Param("now") LocalDateTime now);
+
+    // Row-locks the ids that are still due; rows another replica holds are skipped
+    @Query(value = """
+        SELECT id FROM appointment
+        WHERE id IN (:ids)
+        AND reminder_sent = false
+        AND status = 'BOOKED'
+        FOR UPDATE SKIP LOCKED
+    """, nativeQuery = true)
+    List<Long> lockDueReminders(@Param("ids") Collection<Long> ids);
+
+    // Reminders the wheel says are due, re-checked against the current row
     @Query("""
         SELECT a FROM Appointment a
         JOIN FETCH a.user
         JOIN FETCH a.service
         LEFT JOIN FETCH a.stylist
-        WHERE a.reminderSent = false
+        WHERE a.id IN :ids
+        AND a.reminderSent = false
         AND a.status = com.haircraft.backend.Entity.AppointmentStatus.BOOKED
-        AND a.appointmentDate <= :threshold
     """)
-    List<Appointment> findAppointmentsNeedingReminder(
-            @Param("threshold") LocalDateTime threshold
-    );
+    List<Appointment> findDueReminders(@Param("ids") Collection<Long> ids);
 
     // 🔹 Expired appointments
     @Query("""
@@ -85,59 +99,71 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
             LocalDateTime end
     );
 
-    // ⭐ TOP SERVICE
-    
-
-    // 👤 TOP CUSTOMER
-    
-
     long countByStatus(AppointmentStatus status);
 
+    @Query("SELECT a.status, COUNT(a) FROM Appointment a GROUP BY a.status")
+    List<Object[]> countGroupedByStatus();
+
     // Fetch completed only
     List<Appointment> findByStatus(AppointmentStatus status);
 
+    // Slot occupancy rows: id, stylist id, start, end, service type, chair (no entity hydration)
     @Query("""
-        SELECT a
+        SELECT a.id, a.stylist.id, a.startTime, a.endTime, s.type, a.chair
         FROM Appointment a
+        JOIN a.service s
         WHERE a.appointmentDate >= :start
         AND a.appointmentDate < :end
+        AND a.stylist IS NOT NULL
+        AND a.status NOT IN :released
     """)
-    List<Appointment> findAppointmentsByDate(
+    List<Object[]> findSlotOccupancy(
             @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end
+            @Param("end") LocalDateTime end,
+            @Param("released") Collection<AppointmentStatus> released
     );
 
+    // Analytics rows: id, stylist id, service id, start, amount, status (no entity hydration)
     @Query("""
-        SELECT COUNT(a) > 0
+        SELECT a.id, st.id, s.id, COALESCE(a.startTime, a.appointmentDate), a.amount, a.status
         FROM Appointment a
-        WHERE a.stylist.id = :stylistId
-          AND a.status = com.haircraft.backend.Entity.AppointmentStatus.BOOKED
-          AND (
-               :start < a.endTime
-           AND :end > a.startTime
-          )
+        LEFT JOIN a.stylist st
+        LEFT JOIN a.service s
     """)
-    boolean hasOverlap(
-            Long stylistId,
-            LocalDateTime start,
-            LocalDateTime end
+    List<Object[]> findAnalyticsRows();
+
+    // Same layout, only rows inserted after :afterId or dated from :since on
+    // (PRIMARY and idx_appointment_date ranges, merged by MySQL)
+    @Query("""
+        SELECT a.id, st.id, s.id, COALESCE(a.startTime, a.appointmentDate), a.amount, a.status
+        FROM Appointment a
+        LEFT JOIN a.stylist st
+        LEFT JOIN a.service s
+        WHERE a.id > :afterId
+        OR a.appointmentDate >= :since
+    """)
+    List<Object[]> findAnalyticsRowsChanged(
+            @Param("afterId") Long afterId,
+            @Param("since") LocalDateTime since
     );
 
+    // Status compare-and-set: returns 0 when the status is no longer :from
+    @Modifying(flushAutomatically = true)
     @Query("""
-        SELECT COUNT(a) > 0 FROM Appointment a
-        WHERE a.stylist = :stylist
-        AND a.appointmentDate = :date
-        AND (
-            (:start < a.endTime AND :end > a.startTime)
-        )
+        UPDATE Appointment a
+        SET a.status = :to, a.version = a.version + 1
+        WHERE a.id = :id
+        AND a.status = :from
     """)
-    boolean existsByStylistAndDateAndTimeOverlap(
-            @Param("stylist") Stylist stylist,
-            @Param("date") LocalDateTime date,
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end
+    int compareAndSetStatus(
+            @Param("id") Long id,
+            @Param("from") AppointmentStatus from,
+            @Param("to") AppointmentStatus to
     );
 
+    @Query("SELECT a.status FROM Appointment a WHERE a.id = :id")
+    Optional<AppointmentStatus> findStatusById(@Param("id") Long id);
+
     // ✅ FIXED: default method (Spring will IGNORE this)
     default String getService() {
         return null;
@@ -153,61 +179,78 @@ public interface AppointmentRepository extends JpaRepository<Appointment, Long>
         where a.id = :id
     """)
     Optional<Appointment> findByIdWithUserAndService(@Param("id") Long id);
-    // TEMPORARY COMMENT
+
+    // DTO projections for the list endpoints: one joined query, no entities or lazy loads
+
     @Query("""
-            SELECT s.name, COUNT(a)
-            FROM Appointment a
-            JOIN a.service s
-            WHERE a.status = :status
-            AND a.appointmentDate >= :start
-            AND a.appointmentDate <= :end
-            GROUP BY s.name
-            ORDER BY COUNT(a) DESC
-        """)
-    List<Object[]> findTopService(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end,
-            @Param("status") AppointmentStatus status
-    );
+        SELECT new com.haircraft.backend.dto.AppointmentDTO(
+            a.id, a.status, a.paymentStatus, a.amount, s.name, s.duration, st.name, u.name,
+            a.appointmentDate, a.endTime, a.refundStatus, a.refundId)
+        FROM Appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.stylist st
+        LEFT JOIN a.user u
+        WHERE u.id = :userId
+        ORDER BY a.id
+    """)
+    List<AppointmentDTO> findDTOsByUserId(@Param("userId") Long userId);
 
     @Query("""
-            SELECT u.name, COUNT(a)
-            FROM Appointment a
-            JOIN a.user u
-            WHERE a.status = :status
-            AND a.appointmentDate >= :start
-            AND a.appointmentDate <= :end
-            GROUP BY u.name
-            ORDER BY COUNT(a) DESC
-        """)
-    List<Object[]> findTopCustomer(
-            @Param("start") LocalDateTime start,
-            @Param("end") LocalDateTime end,
-            @Param("status") AppointmentStatus status
-    );
+        SELECT new com.haircraft.backend.dto.AppointmentDTO(
+            a.id, a.status, a.paymentStatus, a.amount, s.name, s.duration, st.name, u.name,
+            a.appointmentDate, a.endTime, a.refundStatus, a.refundId)
+        FROM Appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.stylist st
+        LEFT JOIN a.user u
+        ORDER BY a.appointmentDate DESC
+    """)
+    List<AppointmentDTO> findAllDTOs();
+
+    // Keyset page, newest first. The cursor is the (appointmentDate, id) of the
+    // previous page's last row; the date indexes carry id as their implicit suffix.
     @Query("""
-    SELECT a FROM Appointment a
-    LEFT JOIN FETCH a.service
-    LEFT JOIN FETCH a.user
-    LEFT JOIN FETCH a.stylist
-    ORDER BY a.appointmentDate DESC
-""")
-List<Appointment> findAllWithDetails();
-
-    // Find appointments by stylist and date range
+        SELECT new com.haircraft.backend.dto.AppointmentDTO(
+            a.id, a.status, a.paymentStatus, a.amount, s.name, s.duration, st.name, u.name,
+            a.appointmentDate, a.endTime, a.refundStatus, a.refundId)
+        FROM Appointment a
+        LEFT JOIN a.service s
+        LEFT JOIN a.stylist st
+        LEFT JOIN a.user u
+        WHERE (:status IS NULL OR a.status = :status)
+        AND (:stylistId IS NULL OR a.stylist.id = :stylistId)
+        AND (:from IS NULL OR a.appointmentDate >= :from)
+        AND (:to IS NULL OR a.appointmentDate < :to)
+        AND (:cursorDate IS NULL
+             OR a.appointmentDate < :cursorDate
+             OR (a.appointmentDate = :cursorDate AND a.id < :cursorId))
+        ORDER BY a.appointmentDate DESC, a.id DESC
+    """)
+    List<AppointmentDTO> findPageWithDetails(
+            @Param("status") AppointmentStatus status,
+            @Param("stylistId") Long stylistId,
+            @Param("from") LocalDateTime from,
+            @Param("to") LocalDateTime to,
+            @Param("cursorDate") LocalDateTime cursorDate,
+            @Param("cursorId") Long cursorId,
+            Pageable pageable
+    );
+
+    // Every stylist's appointments in two date windows, one round trip
     @Query("""
         SELECT a FROM Appointment a
+        JOIN FETCH a.stylist
         LEFT JOIN FETCH a.service
         LEFT JOIN FETCH a.user
-        WHERE a.stylist = :stylist
-        AND a.appointmentDate >= :start
-        AND a.appointmentDate < :end
+        WHERE (a.appointmentDate >= :dayStart AND a.appointmentDate < :dayEnd)
+        OR (a.appointmentDate >= :weekStart AND a.appointmentDate < :weekEnd)
         ORDER BY a.appointmentDate ASC
     """)
-    List<Appointment> findByStylistAndDateRange(
-        @Param("stylist") Stylist stylist,
-        @Param("start") LocalDateTime start,
-        @Param("end") LocalDateTime end
+    List<Appointment> findStylistSchedules(
+        @Param("dayStart") LocalDateTime dayStart,
+        @Param("dayEnd") LocalDateTime dayEnd,
+        @Param("weekStart") LocalDateTime weekStart,
+        @Param("weekEnd") LocalDateTime weekEnd
     );
 
 }
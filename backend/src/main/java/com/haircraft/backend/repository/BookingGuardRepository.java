@@ -0,0 +1,92 @@
+package com.haircraft.backend.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceType;
+
+/**
+ * The booking guard's single round trip: locks the stylists being booked
+ * and reads their committed slot occupancy in one statement.
+ *
+ * The stylist row lock is what serializes bookings for one stylist across
+ * replicas. The unique slot key only rejects an identical start, so two
+ * overlapping bookings with different starts would both pass it without
+ * the lock. The stylist is the outer side of the LEFT JOIN, so each one is
+ * locked before its appointments are read, and those are locking reads
+ * too, so they see rows committed while the lock was awaited. Runs on the
+ * connection of the surrounding JPA transaction.
+ */
+@Repository
+public class BookingGuardRepository {
+
+    private static final String LOCK_AND_READ_SQL = """
+        SELECT a.id, st.id, a.start_time, a.end_time, s.service_type, a.chair
+        FROM stylist st
+        LEFT JOIN appointment a
+            ON a.stylist_id = st.id
+            AND a.appointment_date >= ? AND a.appointment_date < ?
+            AND a.status NOT IN (%s)
+        LEFT JOIN hair_services s ON s.id = a.service_id
+        WHERE st.id IN (%s)
+        ORDER BY st.id
+        FOR UPDATE OF st, a
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BookingGuardRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Locks {@code stylistIds} until the transaction ends and returns their
+     * live bookings in [start, end), in the row layout of
+     * {@link AppointmentRepository#findSlotOccupancy}: id, stylist id,
+     * start, end, service type, chair.
+     */
+    public List<Object[]> lockStylistOccupancy(
+            Collection<Long> stylistIds,
+            LocalDateTime start,
+            LocalDateTime end,
+            Collection<AppointmentStatus> released) {
+
+        List<Object> args = new ArrayList<>(2 + released.size() + stylistIds.size());
+        args.add(Timestamp.valueOf(start));
+        args.add(Timestamp.valueOf(end));
+        released.forEach(s -> args.add(s.name()));
+        args.addAll(stylistIds);
+
+        // Only the placeholder count goes into the SQL text; the values are bound
+        String sql = LOCK_AND_READ_SQL.formatted(placeholders(released.size()), placeholders(stylistIds.size()));
+
+        List<Object[]> rows = new ArrayList<>();
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong(1);
+            if (rs.wasNull()) {
+                return; // stylist locked, nothing booked in the range
+            }
+            rows.add(new Object[] {
+                    id,
+                    rs.getLong(2),
+                    rs.getTimestamp(3).toLocalDateTime(),
+                    rs.getTimestamp(4).toLocalDateTime(),
+                    ServiceType.valueOf(rs.getString(5)),
+                    rs.getInt(6)
+            });
+        }, args.toArray());
+        return rows;
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,118 @@
+package com.haircraft.backend.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Plain JDBC access to email_outbox.
+ *
+ * Enqueueing joins whatever transaction is active, so a mail is only ever
+ * sent for a change that committed. Claims use SKIP LOCKED so several
+ * workers, on one node or many, never pick up the same row.
+ */
+@Repository
+public class EmailOutboxRepository {
+
+    // htmlBody is optional
+    public record NewEmail(String from, String to, String subject, String body, String htmlBody) {}
+
+    public record OutboxEmail(long id, String from, String to, String subject, String body, String htmlBody, int attempts) {}
+
+    private static final String CLAIM_SQL = """
+        SELECT id, from_address, to_address, subject, body, html_body, attempts
+        FROM email_outbox
+        WHERE status IN ('PENDING', 'SENDING')
+        AND next_attempt_at <= ?
+        ORDER BY next_attempt_at
+        LIMIT ?
+        FOR UPDATE SKIP LOCKED
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public EmailOutboxRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    private static final String INSERT_SQL = """
+        INSERT INTO email_outbox (from_address, to_address, subject, body, html_body, status, next_attempt_at, created_at)
+        VALUES (?, ?, ?, ?, ?, 'PENDING', ?, ?)
+    """;
+
+    public void enqueue(NewEmail mail) {
+        enqueueAll(List.of(mail));
+    }
+
+    // One JDBC batch for a burst of mails
+    public void enqueueAll(List<NewEmail> mails) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, mails, mails.size(), (ps, m) -> {
+            ps.setString(1, m.from());
+            ps.setString(2, m.to());
+            ps.setString(3, m.subject());
+            ps.setString(4, m.body());
+            ps.setString(5, m.htmlBody());
+            ps.setTimestamp(6, now);
+            ps.setTimestamp(7, now);
+        });
+    }
+
+    /**
+     * Locks up to {@code limit} due rows, marks them SENDING until
+     * {@code leaseUntil} and counts the attempt. Must run inside a
+     * transaction; the row locks are released when it commits.
+     */
+    public List<OutboxEmail> claim(int limit, LocalDateTime leaseUntil) {
+
+        List<OutboxEmail> due = jdbcTemplate.query(CLAIM_SQL,
+                (rs, i) -> new OutboxEmail(
+                        rs.getLong(1), rs.getString(2), rs.getString(3),
+                        rs.getString(4), rs.getString(5), rs.getString(6), rs.getInt(7) + 1),
+                Timestamp.valueOf(LocalDateTime.now()), limit);
+
+        if (!due.isEmpty()) {
+            jdbcTemplate.batchUpdate("""
+                    UPDATE email_outbox
+                    SET status = 'SENDING', attempts = attempts + 1, next_attempt_at = ?
+                    WHERE id = ?
+                    """,
+                    due, due.size(), (ps, e) -> {
+                        ps.setTimestamp(1, Timestamp.valueOf(leaseUntil));
+                        ps.setLong(2, e.id());
+                    });
+        }
+
+        return due;
+    }
+
+    public void markSent(List<Long> ids) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate("""
+                UPDATE email_outbox SET status = 'SENT', sent_at = ?, last_error = NULL WHERE id = ?
+                """,
+                ids, ids.size(), (ps, id) -> {
+                    ps.setTimestamp(1, now);
+                    ps.setLong(2, id);
+                });
+    }
+
+    public void retryAt(long id, LocalDateTime nextAttemptAt, String error) {
+        jdbcTemplate.update("""
+                UPDATE email_outbox SET status = 'PENDING', next_attempt_at = ?, last_error = ? WHERE id = ?
+                """,
+                Timestamp.valueOf(nextAttemptAt), truncate(error), id);
+    }
+
+    public void markFailed(long id, String error) {
+        jdbcTemplate.update("UPDATE email_outbox SET status = 'FAILED', last_error = ? WHERE id = ?",
+                truncate(error), id);
+    }
+
+    private static String truncate(String error) {
+        return error != null && error.length() > 1000 ? error.substring(0, 1000) : error;
+    }
+}
@@ -0,0 +1,143 @@
+package com.haircraft.backend.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Plain JDBC access to history_daily_rollup.
+ *
+ * Writes are additive upserts so concurrent flushes never lose counts;
+ * rebuilds replace a date window wholesale from appointment_history.
+ */
+@Repository
+public class HistoryRollupRepository {
+
+    public record Delta(LocalDate day, long serviceId, AppointmentStatus status, long entries, double revenue) {}
+
+    public record ServiceTotal(long serviceId, long entries, double revenue) {}
+
+    /**
+     * @param maxHistoryId          highest appointment_history id the rebuild could see
+     * @param reversedAppointments  appointments completed in the window whose revenue the
+     *                              rebuild already left out because they were cancelled since
+     */
+    public record Rebuilt(int rows, long maxHistoryId, Set<Long> reversedAppointments) {}
+
+    private static final String UPSERT_SQL = """
+        INSERT INTO history_daily_rollup (day, service_id, status, entries, revenue)
+        VALUES (?, ?, ?, ?, ?)
+        ON DUPLICATE KEY UPDATE
+            entries = entries + VALUES(entries),
+            revenue = revenue + VALUES(revenue)
+    """;
+
+    private static final String AGGREGATE_SQL = """
+        SELECT DATE(ah.changed_at), a.service_id, ah.status, COUNT(*),
+               COALESCE(SUM(CASE WHEN ah.status = 'COMPLETED' AND a.status = 'COMPLETED'
+                                 THEN a.amount END), 0)
+        FROM appointment_history ah
+        JOIN appointment a ON a.id = ah.appointment_id
+        WHERE ah.changed_at >= ? AND ah.changed_at < ?
+        GROUP BY DATE(ah.changed_at), a.service_id, ah.status
+    """;
+
+    private static final String REVERSED_SQL = """
+        SELECT DISTINCT ah.appointment_id
+        FROM appointment_history ah
+        JOIN appointment a ON a.id = ah.appointment_id
+        WHERE ah.changed_at >= ? AND ah.changed_at < ?
+        AND ah.status = 'COMPLETED' AND a.status <> 'COMPLETED'
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public HistoryRollupRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void addAll(List<Delta> deltas) {
+        jdbcTemplate.batchUpdate(UPSERT_SQL, deltas, deltas.size(), (ps, d) -> {
+            ps.setDate(1, Date.valueOf(d.day()));
+            ps.setLong(2, d.serviceId());
+            ps.setString(3, d.status().name());
+            ps.setLong(4, d.entries());
+            ps.setDouble(5, d.revenue());
+        });
+    }
+
+    /**
+     * Per-service totals for one status over [from, to], at most one row
+     * per service and day read.
+     */
+    public List<ServiceTotal> totalsByService(AppointmentStatus status, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("""
+                SELECT service_id, SUM(entries), SUM(revenue)
+                FROM history_daily_rollup
+                WHERE status = ? AND day BETWEEN ? AND ?
+                GROUP BY service_id
+                """,
+                (rs, i) -> new ServiceTotal(rs.getLong(1), rs.getLong(2), rs.getDouble(3)),
+                status.name(), Date.valueOf(from), Date.valueOf(to));
+    }
+
+    // Days on which the appointment was recorded COMPLETED, for revenue reversals
+    public List<LocalDate> completedDays(Long appointmentId) {
+        return jdbcTemplate.query("""
+                SELECT DATE(changed_at) FROM appointment_history
+                WHERE appointment_id = ? AND status = 'COMPLETED'
+                """,
+                (rs, i) -> rs.getDate(1).toLocalDate(),
+                appointmentId);
+    }
+
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM history_daily_rollup LIMIT 1").isEmpty();
+    }
+
+    public LocalDateTime firstHistoryAt() {
+        Timestamp first = jdbcTemplate.queryForObject(
+                "SELECT MIN(changed_at) FROM appointment_history", Timestamp.class);
+        return first != null ? first.toLocalDateTime() : null;
+    }
+
+    /**
+     * Replaces the rollup rows for [from, to) with a fresh aggregate of the
+     * history rows. Must run in a REPEATABLE READ transaction: the reads are
+     * plain SELECTs, so they share one snapshot, and the returned fence
+     * describes exactly what the aggregate counted.
+     */
+    public Rebuilt rebuild(LocalDate from, LocalDate to) {
+
+        Timestamp start = Timestamp.valueOf(from.atStartOfDay());
+        Timestamp end = Timestamp.valueOf(to.atStartOfDay());
+
+        // The first read fixes the snapshot the others see
+        Long maxHistoryId = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(MAX(id), 0) FROM appointment_history", Long.class);
+
+        List<Delta> rows = jdbcTemplate.query(AGGREGATE_SQL,
+                (rs, i) -> new Delta(rs.getDate(1).toLocalDate(), rs.getLong(2),
+                        AppointmentStatus.valueOf(rs.getString(3)), rs.getLong(4), rs.getDouble(5)),
+                start, end);
+
+        Set<Long> reversed = new HashSet<>(jdbcTemplate.queryForList(REVERSED_SQL, Long.class, start, end));
+
+        jdbcTemplate.update("DELETE FROM history_daily_rollup WHERE day >= ? AND day < ?",
+                Date.valueOf(from), Date.valueOf(to));
+        if (!rows.isEmpty()) {
+            addAll(rows);
+        }
+
+        return new Rebuilt(rows.size(), maxHistoryId != null ? maxHistoryId : 0L, reversed);
+    }
+}
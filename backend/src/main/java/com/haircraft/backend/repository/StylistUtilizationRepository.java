@@ -0,0 +1,69 @@
+package com.haircraft.backend.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Occupied chair minutes per stylist and day, aggregated in MySQL.
+ *
+ * Each appointment is clipped to that day's opening hours before summing,
+ * so time booked outside them never counts towards utilization, and is
+ * counted once per chair it occupies.
+ */
+@Repository
+public class StylistUtilizationRepository {
+
+    public record StylistDayMinutes(long stylistId, LocalDate day, long minutes) {}
+
+    // A CONTINUOUS service occupies all of the stylist's chairs, as in the slot engine
+    private static final String OCCUPIED_SQL = """
+        SELECT a.stylist_id, DATE(a.start_time),
+               SUM(GREATEST(0, TIMESTAMPDIFF(MINUTE,
+                   GREATEST(a.start_time, TIMESTAMP(DATE(a.start_time), ?)),
+                   LEAST(a.end_time, TIMESTAMP(DATE(a.start_time), ?))))
+                   * CASE WHEN s.service_type = 'CONTINUOUS' THEN GREATEST(st.capacity, 1) ELSE 1 END)
+        FROM appointment a
+        JOIN stylist st ON st.id = a.stylist_id
+        JOIN hair_services s ON s.id = a.service_id
+        WHERE a.start_time >= ? AND a.start_time < ?
+        AND a.status NOT IN (%s)
+        GROUP BY a.stylist_id, DATE(a.start_time)
+    """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public StylistUtilizationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Days in [from, to] with at least one occupying booking; a missing row means zero
+    public List<StylistDayMinutes> occupiedMinutes(
+            LocalDate from, LocalDate to,
+            LocalTime opening, LocalTime closing,
+            Collection<AppointmentStatus> released) {
+
+        List<Object> args = new ArrayList<>(4 + released.size());
+        args.add(opening.toString());
+        args.add(closing.toString());
+        args.add(Timestamp.valueOf(from.atStartOfDay()));
+        args.add(Timestamp.valueOf(to.plusDays(1).atStartOfDay()));
+        released.forEach(s -> args.add(s.name()));
+
+        // Only the placeholder count goes into the SQL text; the statuses are bound
+        String sql = OCCUPIED_SQL.formatted(String.join(", ", Collections.nCopies(released.size(), "?")));
+
+        return jdbcTemplate.query(sql,
+                (rs, i) -> new StylistDayMinutes(rs.getLong(1), rs.getDate(2).toLocalDate(), rs.getLong(3)),
+                args.toArray());
+    }
+}
@@ -1,62 +1,221 @@
 package com.haircraft.backend.scheduler;
 
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
-import org.springframework.scheduling.annotation.Scheduled;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import com.haircraft.backend.Entity.Appointment;
 import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.event.AppointmentBookedEvent;
+import com.haircraft.backend.event.AppointmentSnapshot;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
 import com.haircraft.backend.repository.AppointmentRepository;
 import com.haircraft.backend.service.EmailService;
 
-import jakarta.transaction.Transactional; 
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import jakarta.annotation.PreDestroy;
 
+/**
+ * Sends each BOOKED appointment's reminder {@code reminderMinutes} before it
+ * starts.
+ *
+ * Pending reminders sit in a timing wheel loaded once at startup and kept
+ * current by booking and status-change events. A one-second tick only
+ * advances the wheel; the database is read when a reminder actually comes
+ * due, and that read re-checks status and reminderSent so a missed event
+ * can never send a stale reminder.
+ *
+ * Every replica runs its own wheel. Dispatch claims rows in the database,
+ * so replicas share a burst between them instead of each sending it. A
+ * replica learns of other replicas' bookings at startup; setting
+ * {@code reminders.resync-ms} also re-reads them on that interval.
+ */
 @Component
 public class AppointmentReminderScheduler {
 
+    private static final Logger log = LoggerFactory.getLogger(AppointmentReminderScheduler.class);
+
+    // 1 s ticks, 64 slots per level: levels span ~1 min, ~68 min, ~3 days, ~194 days
+    private static final long TICK_MILLIS = 1000;
+    private static final int WHEEL_SIZE = 64;
+    private static final int WHEEL_LEVELS = 4;
+
+    private static final int CLAIM_BATCH = 50;
+
     private final AppointmentRepository appointmentRepo;
     private final EmailService emailService;
+    private final TransactionTemplate tx;
+    private final ScheduledExecutorService ticker;
+    private final ExecutorService dispatchPool;
+
+    // Guarded by itself
+    private final TimingWheel<Long> wheel =
+            new TimingWheel<>(TICK_MILLIS, WHEEL_SIZE, WHEEL_LEVELS, System.currentTimeMillis());
 
     public AppointmentReminderScheduler(
             AppointmentRepository appointmentRepo,
-            EmailService emailService
+            EmailService emailService,
+            PlatformTransactionManager txManager,
+            @Value("${reminders.dispatch-threads:4}") int dispatchThreads,
+            @Value("${reminders.resync-ms:0}") long resyncMillis
     ) {
         this.appointmentRepo = appointmentRepo;
         this.emailService = emailService;
-    }
+        this.tx = new TransactionTemplate(txManager);
 
-   
+        AtomicInteger n = new AtomicInteger();
+        this.dispatchPool = Executors.newFixedThreadPool(dispatchThreads, r -> {
+            Thread t = new Thread(r, "reminder-dispatch-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
 
-    private static final Logger log = LoggerFactory.getLogger(AppointmentReminderScheduler.class);
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "reminder-wheel");
+            t.setDaemon(true);
+            return t;
+        });
+        this.ticker.scheduleAtFixedRate(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+
+        // Opt-in; the query runs on the dispatch pool so it never holds up a tick
+        if (resyncMillis > 0) {
+            this.ticker.scheduleWithFixedDelay(() -> dispatchPool.execute(this::loadUpcoming),
+                    resyncMillis, resyncMillis, TimeUnit.MILLISECONDS);
+        }
+    }
 
-    @Scheduled(fixedRate = 60000)
-    @Transactional
-    public void sendAppointmentReminders() {
+    // ================= LOAD =================
 
+    /**
+     * Schedules every upcoming BOOKED reminder. Runs once at startup, after
+     * which booking and status events keep the wheel current, and again on
+     * every {@code reminders.resync-ms} when that is set: events only reach
+     * the replica that handled the request. Rescheduling an id just
+     * replaces its timer.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadUpcoming() {
         try {
-            LocalDateTime now = LocalDateTime.now();
-            LocalDateTime threshold = now.plusMinutes(60);
-
-            List<Appointment> appointments =
-                    appointmentRepo.findAppointmentsNeedingReminder(threshold);
-
-            for (Appointment appt : appointments) {
-                try {
-                    if (!appt.isReminderSent()) {
-                        emailService.sendAppointmentReminder(appt);
-                        appt.setReminderSent(true);
-                        appointmentRepo.save(appt);
-                    }
-                } catch (Exception e) {
-                    log.error("Error sending reminder for appointment ID: {}", appt.getId(), e);
+            List<Object[]> rows = appointmentRepo.findUpcomingReminders(LocalDateTime.now());
+
+            synchronized (wheel) {
+                for (Object[] row : rows) {
+                    schedule((Long) row[0], (LocalDateTime) row[1], ((Number) row[2]).intValue());
                 }
             }
+
+            log.info("Reminder wheel synced with {} pending reminders", rows.size());
         } catch (Exception e) {
-            log.error("Unexpected error in appointment reminder scheduler", e);
+            log.error("Could not load pending reminders", e);
         }
     }
+
+    // ================= EVENTS =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooked(AppointmentBookedEvent event) {
+        track(event.appointment());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        track(event.appointment());
+    }
+
+    private void track(AppointmentSnapshot a) {
+        synchronized (wheel) {
+            if (a.status() == AppointmentStatus.BOOKED && a.startTime() != null) {
+                schedule(a.id(), a.startTime(), a.reminderMinutes());
+            } else {
+                wheel.cancel(a.id());
+            }
+        }
+    }
+
+    private void schedule(Long id, LocalDateTime start, int reminderMinutes) {
+        LocalDateTime fireAt = start.minusMinutes(reminderMinutes);
+        wheel.schedule(id, fireAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli(), id);
+    }
+
+    // ================= FIRE =================
+
+    // Runs on its own thread, so slow @Scheduled jobs never delay a reminder
+    private void tick() {
+        try {
+            List<Long> due;
+            synchronized (wheel) {
+                due = wheel.advanceTo(System.currentTimeMillis());
+            }
+
+            // Claimed batches run in parallel; each is its own transaction
+            for (int from = 0; from < due.size(); from += CLAIM_BATCH) {
+                List<Long> batch = List.copyOf(due.subList(from, Math.min(from + CLAIM_BATCH, due.size())));
+                dispatchPool.execute(() -> dispatch(batch));
+            }
+        } catch (RuntimeException e) {
+            // An exception escaping here would cancel every later tick
+            log.error("Reminder wheel tick failed", e);
+        }
+    }
+
+    /**
+     * Locks whichever of {@code ids} are still due with FOR UPDATE SKIP
+     * LOCKED, queues their reminders and sets reminderSent, all in one
+     * transaction. Rows another replica is dispatching are skipped, and once
+     * it commits they are no longer due, so every reminder goes out once.
+     */
+    private void dispatch(List<Long> ids) {
+        try {
+            Integer sent = tx.execute(status -> {
+                List<Long> claimed = appointmentRepo.lockDueReminders(ids);
+                if (claimed.isEmpty()) {
+                    return 0;
+                }
+
+                List<Appointment> appointments = appointmentRepo.findDueReminders(claimed);
+
+                // One batched outbox insert per claim; delivery happens after commit
+                List<Appointment> queued = emailService.sendAppointmentReminders(appointments);
+
+                for (Appointment appt : queued) {
+                    appt.setReminderSent(true);
+                }
+                appointmentRepo.saveAll(queued);
+                return queued.size();
+            });
+
+            log.info("Queued {} of {} due reminders", sent, ids.size());
+        } catch (Exception e) {
+            log.error("Sending due reminders failed, retrying in a minute", e);
+
+            // Put them back so a database hiccup does not drop reminders
+            long retryAt = System.currentTimeMillis() + 60_000;
+            synchronized (wheel) {
+                for (Long id : ids) {
+                    wheel.schedule(id, retryAt, id);
+                }
+            }
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        ticker.shutdownNow();
+        dispatchPool.shutdown();
+        dispatchPool.awaitTermination(10, TimeUnit.SECONDS);
+    }
 }
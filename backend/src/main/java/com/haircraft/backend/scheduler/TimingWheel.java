@@ -0,0 +1,155 @@
+package com.haircraft.backend.scheduler;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hierarchical timing wheel keyed by a long id.
+ *
+ * Level 0 has one slot per tick; each level above covers {@code wheelSize}
+ * times the span of the one below. Timers far enough out to overflow the
+ * top level wait in a list that is re-sorted each time the top level
+ * wraps. Advancing one tick touches a single level-0 slot, plus a higher
+ * slot whenever a level wraps, so the cost is independent of how many
+ * timers are pending. Scheduling an id again replaces its timer.
+ *
+ * Not thread-safe; callers synchronize.
+ */
+public final class TimingWheel<T> {
+
+    private static final class Timer<T> {
+        final long key;
+        final long dueTick;
+        final T payload;
+        boolean cancelled;
+
+        Timer(long key, long dueTick, T payload) {
+            this.key = key;
+            this.dueTick = dueTick;
+            this.payload = payload;
+        }
+    }
+
+    private final long tickMillis;
+    private final int wheelSize;
+    private final long[] spans;                  // ticks covered by one slot, per level
+    private final List<List<Timer<T>>> slots;    // level * wheelSize + slot
+    private final List<Timer<T>> overflow = new ArrayList<>();
+    private final Map<Long, Timer<T>> byKey = new HashMap<>();
+
+    private long currentTick;
+
+    public TimingWheel(long tickMillis, int wheelSize, int levels, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.wheelSize = wheelSize;
+        this.spans = new long[levels + 1];
+        this.currentTick = startMillis / tickMillis;
+
+        long span = 1;
+        for (int level = 0; level <= levels; level++) {
+            spans[level] = span;
+            span *= wheelSize;
+        }
+
+        this.slots = new ArrayList<>(levels * wheelSize);
+        for (int i = 0; i < levels * wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    // A due time already in the past fires on the next advance
+    public void schedule(long key, long dueMillis, T payload) {
+        cancel(key);
+        Timer<T> timer = new Timer<>(key, dueMillis / tickMillis, payload);
+        byKey.put(key, timer);
+        place(timer, null);
+    }
+
+    public void cancel(long key) {
+        Timer<T> timer = byKey.remove(key);
+        if (timer != null) {
+            timer.cancelled = true;
+        }
+    }
+
+    /**
+     * Moves time forward to {@code nowMillis} and returns the payloads of
+     * every timer that came due on the way, in due order.
+     */
+    public List<T> advanceTo(long nowMillis) {
+
+        long target = nowMillis / tickMillis;
+        List<T> due = new ArrayList<>();
+
+        while (currentTick < target) {
+            currentTick++;
+
+            // Cascade wrapped levels top-down so their timers land in this tick's slot
+            int levels = spans.length - 1;
+            if (currentTick % spans[levels] == 0) {
+                List<Timer<T>> waiting = new ArrayList<>(overflow);
+                overflow.clear();
+                waiting.forEach(t -> place(t, due));
+            }
+            for (int level = levels - 1; level >= 1; level--) {
+                if (currentTick % spans[level] == 0) {
+                    List<Timer<T>> slot = slot(level, currentTick);
+                    List<Timer<T>> cascading = new ArrayList<>(slot);
+                    slot.clear();
+                    cascading.forEach(t -> place(t, due));
+                }
+            }
+
+            List<Timer<T>> slot = slot(0, currentTick);
+            for (Timer<T> t : slot) {
+                fire(t, due);
+            }
+            slot.clear();
+        }
+
+        return due;
+    }
+
+    private void place(Timer<T> timer, List<T> due) {
+
+        if (timer.cancelled) {
+            return;
+        }
+
+        long delta = timer.dueTick - currentTick;
+        if (delta <= 0) {
+            if (due != null) {
+                fire(timer, due);
+            } else {
+                slot(0, currentTick + 1).add(timer);
+            }
+            return;
+        }
+
+        for (int level = 0; level < spans.length - 1; level++) {
+            if (delta < spans[level + 1]) {
+                slot(level, timer.dueTick).add(timer);
+                return;
+            }
+        }
+        overflow.add(timer);
+    }
+
+    private void fire(Timer<T> timer, List<T> due) {
+        if (!timer.cancelled) {
+            timer.cancelled = true;
+            byKey.remove(timer.key);
+            due.add(timer.payload);
+        }
+    }
+
+    private List<Timer<T>> slot(int level, long tick) {
+        return slots.get(level * wheelSize + (int) ((tick / spans[level]) % wheelSize));
+    }
+}
@@ -0,0 +1,364 @@
+package com.haircraft.backend.service;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceItem;
+import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.AnalyticsResponse;
+import com.haircraft.backend.dto.AnalyticsResponse.Series;
+import com.haircraft.backend.event.AppointmentBookedEvent;
+import com.haircraft.backend.event.AppointmentSnapshot;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.ServiceRepository;
+import com.haircraft.backend.repository.StylistRepository;
+
+/**
+ * Time-bucketed admin analytics: a weekday-by-hour booking heatmap,
+ * completed revenue per stylist and booking trend per service.
+ *
+ * Every appointment is kept as one row of a few parallel primitive arrays
+ * (start in epoch minutes, stylist id, service id, amount, status ordinal).
+ * The arrays are loaded in full once at startup and patched by committed
+ * bookings and status changes. A periodic resync re-reads only new rows and
+ * appointments dated within the last few days, which is where edits made
+ * outside the app land, so it never rescans the whole table. A query is a
+ * single scan over the arrays, so any slice comes back without touching
+ * the database.
+ */
+@Service
+public class AppointmentAnalyticsService {
+
+    public enum Bucket { DAY, WEEK }
+
+    static final int MAX_RANGE_DAYS = 731;
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final AppointmentStatus[] STATUSES = AppointmentStatus.values();
+
+    private static final Logger log = LoggerFactory.getLogger(AppointmentAnalyticsService.class);
+
+    private final AppointmentRepository appointmentRepo;
+    private final StylistRepository stylistRepo;
+    private final ServiceRepository serviceRepo;
+    private final int resyncDays;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Guarded by lock
+    private Columns columns = new Columns(0);
+
+    // Highest appointment id read from the table, -1 until a full load succeeded. Guarded by lock
+    private long loadedThroughId = -1;
+
+    public AppointmentAnalyticsService(
+            AppointmentRepository appointmentRepo,
+            StylistRepository stylistRepo,
+            ServiceRepository serviceRepo,
+            @Value("${analytics.snapshot.resync-days:31}") int resyncDays
+    ) {
+        this.appointmentRepo = appointmentRepo;
+        this.stylistRepo = stylistRepo;
+        this.serviceRepo = serviceRepo;
+        this.resyncDays = resyncDays;
+    }
+
+    // ================= QUERY =================
+
+    public AnalyticsResponse analyze(LocalDate from, LocalDate to, Bucket bucket, Long stylistId, Long serviceId) {
+
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range must be at most " + MAX_RANGE_DAYS + " days");
+        }
+
+        // Buckets start on the first day (DAY) or the Monday on or before it (WEEK)
+        LocalDate firstBucket = bucket == Bucket.WEEK
+                ? from.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : from;
+        int bucketDays = bucket == Bucket.WEEK ? 7 : 1;
+        long firstBucketDay = firstBucket.toEpochDay();
+        int bucketCount = (int) ((to.toEpochDay() - firstBucketDay) / bucketDays) + 1;
+
+        int fromMinute = (int) (from.toEpochDay() * MINUTES_PER_DAY);
+        int toMinute = (int) ((to.toEpochDay() + 1) * MINUTES_PER_DAY);
+        int stylistFilter = stylistId != null ? Math.toIntExact(stylistId) : 0;
+        int serviceFilter = serviceId != null ? Math.toIntExact(serviceId) : 0;
+
+        long[][] heatmap = new long[7][24];
+        Map<Integer, double[]> revenueByStylist = new HashMap<>();
+        Map<Integer, double[]> bookingsByService = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            Columns c = columns;
+
+            for (int i = 0; i < c.size; i++) {
+
+                int minute = c.startMinute[i];
+                if (minute < fromMinute || minute >= toMinute
+                        || (stylistFilter != 0 && c.stylistId[i] != stylistFilter)
+                        || (serviceFilter != 0 && c.serviceId[i] != serviceFilter)) {
+                    continue;
+                }
+
+                AppointmentStatus status = STATUSES[c.status[i]];
+                long day = Math.floorDiv(minute, MINUTES_PER_DAY);
+                int slot = (int) ((day - firstBucketDay) / bucketDays);
+
+                if (status == AppointmentStatus.COMPLETED && c.stylistId[i] != 0) {
+                    revenueByStylist.computeIfAbsent(c.stylistId[i], id -> new double[bucketCount])[slot] += c.amount[i];
+                }
+
+                if (AvailabilityEngine.RELEASED_STATUSES.contains(status)) {
+                    continue;
+                }
+
+                // 1970-01-01 was a Thursday, index 3 counting from Monday
+                int weekday = (int) Math.floorMod(day + 3, 7);
+                heatmap[weekday][Math.floorMod(minute, MINUTES_PER_DAY) / 60]++;
+
+                if (c.serviceId[i] != 0) {
+                    bookingsByService.computeIfAbsent(c.serviceId[i], id -> new double[bucketCount])[slot]++;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<String> labels = new ArrayList<>(bucketCount);
+        for (int b = 0; b < bucketCount; b++) {
+            labels.add(firstBucket.plusDays((long) b * bucketDays).toString());
+        }
+
+        return new AnalyticsResponse(
+                from.toString(),
+                to.toString(),
+                bucket.name(),
+                labels,
+                heatmap,
+                stylistSeries(revenueByStylist),
+                serviceSeries(bookingsByService)
+        );
+    }
+
+    private List<Series> stylistSeries(Map<Integer, double[]> values) {
+        Map<Long, String> names = new HashMap<>();
+        for (Stylist s : stylistRepo.findAllById(values.keySet().stream().map(Integer::longValue).toList())) {
+            names.put(s.getId(), s.getName());
+        }
+        return series(values, names);
+    }
+
+    private List<Series> serviceSeries(Map<Integer, double[]> values) {
+        Map<Long, String> names = new HashMap<>();
+        for (ServiceItem s : serviceRepo.findAllById(values.keySet().stream().map(Integer::longValue).toList())) {
+            names.put(s.getId(), s.getName());
+        }
+        return series(values, names);
+    }
+
+    private static List<Series> series(Map<Integer, double[]> values, Map<Long, String> names) {
+        List<Series> result = new ArrayList<>(values.size());
+        values.forEach((id, v) -> result.add(new Series(id.longValue(), names.getOrDefault(id.longValue(), "—"), v)));
+        result.sort((a, b) -> Double.compare(Arrays.stream(b.getValues()).sum(), Arrays.stream(a.getValues()).sum()));
+        return result;
+    }
+
+    // ================= UPDATES =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooked(AppointmentBookedEvent event) {
+        upsert(event.appointment());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        upsert(event.appointment());
+    }
+
+    private void upsert(AppointmentSnapshot a) {
+        if (a.id() == null || a.startTime() == null || a.status() == null) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            columns.put(a.id(), epochMinute(a.startTime()), id(a.stylistId()), id(a.serviceId()),
+                    a.amount(), a.status());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ================= RELOAD =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadOnStartup() {
+        reload();
+    }
+
+    /**
+     * Full load on the first run (or until one succeeds), after that a
+     * resync of rows with a higher id than any read so far plus every
+     * appointment dated within the last {@code resyncDays}. Both are plain
+     * index ranges. Rows are read outside the lock, so a change committed
+     * while the query runs can be missing until the next resync.
+     */
+    @Scheduled(
+            initialDelayString = "${analytics.snapshot.reload-ms:3600000}",
+            fixedDelayString = "${analytics.snapshot.reload-ms:3600000}"
+    )
+    public void reload() {
+        try {
+            long afterId;
+            lock.readLock().lock();
+            try {
+                afterId = loadedThroughId;
+            } finally {
+                lock.readLock().unlock();
+            }
+
+            if (afterId < 0) {
+                loadAll();
+            } else {
+                resync(afterId);
+            }
+        } catch (Exception e) {
+            log.warn("Analytics snapshot reload failed", e);
+        }
+    }
+
+    private void loadAll() {
+        List<Object[]> rows = appointmentRepo.findAnalyticsRows();
+        Columns fresh = new Columns(rows.size());
+        long maxId = putAll(fresh, rows, 0);
+
+        lock.writeLock().lock();
+        try {
+            columns = fresh;
+            loadedThroughId = maxId;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.debug("Analytics snapshot loaded: {} appointments", fresh.size);
+    }
+
+    private void resync(long afterId) {
+        LocalDateTime since = LocalDate.now().minusDays(resyncDays).atStartOfDay();
+        List<Object[]> rows = appointmentRepo.findAnalyticsRowsChanged(afterId, since);
+
+        lock.writeLock().lock();
+        try {
+            loadedThroughId = putAll(columns, rows, loadedThroughId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.debug("Analytics snapshot resynced: {} appointments re-read", rows.size());
+    }
+
+    // Returns the highest id seen, starting from maxId
+    private static long putAll(Columns target, List<Object[]> rows, long maxId) {
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            maxId = Math.max(maxId, id);
+            if (row[3] == null || row[5] == null) {
+                continue;
+            }
+            target.put(
+                    id,
+                    epochMinute((LocalDateTime) row[3]),
+                    id((Long) row[1]),
+                    id((Long) row[2]),
+                    (Double) row[4],
+                    (AppointmentStatus) row[5]);
+        }
+        return maxId;
+    }
+
+    // Local wall-clock minute; the zone never matters since it is only bucketed back into local days and hours
+    private static int epochMinute(LocalDateTime t) {
+        return (int) (t.toEpochSecond(ZoneOffset.UTC) / 60);
+    }
+
+    // 0 stands for "none"; database ids start at 1
+    private static int id(Long id) {
+        return id != null ? Math.toIntExact(id) : 0;
+    }
+
+    // ================= STORAGE =================
+
+    private static final class Columns {
+
+        final Map<Long, Integer> rowById;
+        int size;
+        int[] startMinute;
+        int[] stylistId;
+        int[] serviceId;
+        double[] amount;
+        byte[] status;
+
+        Columns(int capacity) {
+            int n = Math.max(capacity, 64);
+            rowById = new HashMap<>(n * 4 / 3 + 1);
+            startMinute = new int[n];
+            stylistId = new int[n];
+            serviceId = new int[n];
+            amount = new double[n];
+            status = new byte[n];
+        }
+
+        void put(long id, int minute, int stylist, int service, Double value, AppointmentStatus st) {
+            Integer row = rowById.get(id);
+            if (row == null) {
+                if (size == startMinute.length) {
+                    grow();
+                }
+                row = size++;
+                rowById.put(id, row);
+            }
+            startMinute[row] = minute;
+            stylistId[row] = stylist;
+            serviceId[row] = service;
+            amount[row] = value != null ? value : 0;
+            status[row] = (byte) st.ordinal();
+        }
+
+        private void grow() {
+            int n = startMinute.length * 2;
+            startMinute = Arrays.copyOf(startMinute, n);
+            stylistId = Arrays.copyOf(stylistId, n);
+            serviceId = Arrays.copyOf(serviceId, n);
+            amount = Arrays.copyOf(amount, n);
+            status = Arrays.copyOf(status, n);
+        }
+    }
+}
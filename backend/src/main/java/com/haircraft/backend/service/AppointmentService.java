@@ -1,27 +1,62 @@
 package com.haircraft.backend.service;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.Year;
 import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumSet;
+import java.util.HashSet;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
 
 import com.haircraft.backend.Entity.Appointment;
 import com.haircraft.backend.Entity.AppointmentHistory;
 import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.PaymentStatus;
+import com.haircraft.backend.Entity.ServiceItem;
+import com.haircraft.backend.Entity.ServiceType;
+import com.haircraft.backend.Entity.Stylist;
 import com.haircraft.backend.Entity.User;
-import com.haircraft.backend.Exception.SlotAlreadyBookedException;
 import com.haircraft.backend.dto.AppointmentDTO;
 import com.haircraft.backend.dto.AppointmentHistoryDTO;
+import com.haircraft.backend.dto.AppointmentPageResponse;
+import com.haircraft.backend.dto.AppointmentRequest;
 import com.haircraft.backend.dto.DashboardHistoryResponse;
 import com.haircraft.backend.dto.DashboardOverviewResponse;
+import com.haircraft.backend.dto.HistoryDashboardRow;
+import com.haircraft.backend.event.AppointmentBookedEvent;
+import com.haircraft.backend.event.AppointmentHistoryRecordedEvent;
+import com.haircraft.backend.event.AppointmentSnapshot;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.AppointmentBatchRepository;
 import com.haircraft.backend.repository.AppointmentHistoryRepository;
 import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.HistoryRollupRepository;
+import com.haircraft.backend.repository.ServiceRepository;
+import com.haircraft.backend.repository.StylistRepository;
 import com.haircraft.backend.repository.UserRepository;
 import com.haircraft.backend.service.TimelineService;
 import com.haircraft.backend.service.NotificationService;
@@ -32,6 +67,8 @@ import jakarta.persistence.PersistenceContext;
 @Service
 public class AppointmentService {
 
+    private static final Logger log = LoggerFactory.getLogger(AppointmentService.class);
+
     private final AppointmentRepository appointmentRepo;
     private final AppointmentHistoryRepository historyRepo;
     private final UserRepository userRepo;
@@ -40,10 +77,30 @@ public class AppointmentService {
     private final RazorpayService razorpayService;
     private final EmailService emailService;
     private final com.haircraft.backend.repository.WaitlistRepository waitlistRepo;
+    private final ApplicationEventPublisher events;
+    private final AvailabilityEngine availabilityEngine;
+    private final ServiceRepository serviceRepo;
+    private final StylistRepository stylistRepo;
+    private final AppointmentBatchRepository batchRepo;
+    private final AppointmentStateMachine stateMachine;
+    private final DashboardCounters dashboardCounters;
+    private final HistoryRollupService historyRollup;
+    private final LeaderboardService leaderboard;
+    private final TransactionTemplate refundTx;
     
     @PersistenceContext
     private EntityManager entityManager;
 
+    private static final int STATUS_CAS_ATTEMPTS = 3;
+
+    private static final List<AppointmentStatus> DASHBOARD_HISTORY_STATUSES = List.of(
+            AppointmentStatus.COMPLETED,
+            AppointmentStatus.REFUNDED,
+            AppointmentStatus.CANCELLED_BY_ADMIN,
+            AppointmentStatus.CANCELLED,
+            AppointmentStatus.REJECTED
+    );
+
     public AppointmentService(
             AppointmentRepository appointmentRepo,
             AppointmentHistoryRepository historyRepo,
@@ -52,7 +109,16 @@ public class AppointmentService {
             TimelineService timelineService,
             RazorpayService razorpayService,
             EmailService emailService,
-            com.haircraft.backend.repository.WaitlistRepository waitlistRepo
+            com.haircraft.backend.repository.WaitlistRepository waitlistRepo,
+            ApplicationEventPublisher events,
+            AvailabilityEngine availabilityEngine,
+            ServiceRepository serviceRepo,
+            StylistRepository stylistRepo,
+            AppointmentBatchRepository batchRepo,
+            DashboardCounters dashboardCounters,
+            HistoryRollupService historyRollup,
+            LeaderboardService leaderboard,
+            PlatformTransactionManager txManager
     ) {
         this.appointmentRepo = appointmentRepo;
         this.historyRepo = historyRepo;
@@ -62,6 +128,33 @@ public class AppointmentService {
         this.razorpayService = razorpayService;
         this.emailService = emailService;
         this.waitlistRepo = waitlistRepo;
+        this.events = events;
+        this.availabilityEngine = availabilityEngine;
+        this.serviceRepo = serviceRepo;
+        this.stylistRepo = stylistRepo;
+        this.batchRepo = batchRepo;
+        this.dashboardCounters = dashboardCounters;
+        this.historyRollup = historyRollup;
+        this.leaderboard = leaderboard;
+
+        // Runs from afterCommit, where the finished transaction is still bound
+        this.refundTx = new TransactionTemplate(txManager);
+        this.refundTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.refundTx.setIsolationLevel(TransactionDefinition.ISOLATION_READ_COMMITTED);
+
+        // Registration order is execution order within a transition. The
+        // Razorpay refund can't be undone, so refundOrNotify goes last and
+        // only schedules it for after commit.
+        this.stateMachine = new AppointmentStateMachine()
+                .onEnter(EnumSet.of(AppointmentStatus.CANCELLED, AppointmentStatus.REJECTED,
+                                AppointmentStatus.CANCELLED_BY_ADMIN),
+                        this::markRefunded)
+                .onEnter(EnumSet.of(AppointmentStatus.COMPLETED), this::creditCashback)
+                .onEnter(AvailabilityEngine.RELEASED_STATUSES,
+                        (a, from, to) -> triggerWaitlistNotifications(a))
+                .onEnter(EnumSet.allOf(AppointmentStatus.class), this::addTimelineEntry)
+                .onEnter(EnumSet.of(AppointmentStatus.CANCELLED_BY_ADMIN, AppointmentStatus.REJECTED),
+                        this::refundOrNotify);
     }
 
     // ================= USER =================
@@ -82,41 +175,254 @@ public class AppointmentService {
 
     // ================= SAVE =================
 
-    @Transactional
+    /**
+     * Inserts a new appointment after claiming its slot in the
+     * availability engine. The claim is the overlap and capacity check
+     * against this instance's cache; it is then confirmed against committed
+     * rows under the stylist's row lock, which catches bookings made on
+     * other instances.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public Appointment save(Appointment appointment) {
 
-        boolean exists = appointmentRepo.existsByAppointmentDateAndStatus(
-                appointment.getAppointmentDate(),
-                AppointmentStatus.BOOKED
-        );
+        AvailabilityEngine.Reservation reservation = null;
+        boolean verified = false;
+
+        if (appointment.getStartTime() != null &&
+            appointment.getEndTime() != null) {
+
+            ServiceType type = appointment.getService() != null
+                    ? appointment.getService().getType()
+                    : ServiceType.FIXED;
+
+            if (appointment.getStylist() != null) {
+                reservation = availabilityEngine.tryReserve(
+                        appointment.getStylist().getId(),
+                        appointment.getStartTime(),
+                        appointment.getEndTime(),
+                        type
+                );
+
+                if (reservation == null) {
+                    throw new ResponseStatusException(
+                            HttpStatus.CONFLICT,
+                            "Stylist is already booked at this time"
+                    );
+                }
+                appointment.setChair(reservation.chair());
+            } else {
+                reservation = assignAnyStylist(appointment, type);
+                verified = true;
+            }
+        }
 
-        if (exists) {
+        Appointment saved;
+        try {
+            if (reservation != null && !verified) {
+                appointment.setChair(verifyCommitted(
+                        List.of(reservation), "Stylist is already booked at this time")[0]);
+            }
+            saved = appointmentRepo.saveAndFlush(appointment);
+        } catch (DataIntegrityViolationException e) {
+            if (reservation != null) availabilityEngine.release(reservation);
             throw new ResponseStatusException(
                     HttpStatus.CONFLICT,
-                    "Slot already booked"
+                    "Stylist is already booked at this time"
             );
+        } catch (RuntimeException e) {
+            if (reservation != null) availabilityEngine.release(reservation);
+            throw e;
         }
 
-        if (appointment.getStylist() != null &&
-            appointment.getStartTime() != null &&
-            appointment.getEndTime() != null) {
+        if (reservation != null) {
+            availabilityEngine.holdUntilCompletion(reservation, saved.getId());
+        }
 
-            boolean slotExists =
-                    appointmentRepo.existsByStylistAndDateAndTimeOverlap(
-                            appointment.getStylist(),
-                            appointment.getAppointmentDate(),
-                            appointment.getStartTime(),
-                            appointment.getEndTime()
-                    );
+        events.publishEvent(new AppointmentBookedEvent(AppointmentSnapshot.of(saved)));
+        return saved;
+    }
 
-            if (slotExists) {
-                throw new SlotAlreadyBookedException(
-                        "Slot already booked. Please choose another time."
+    /**
+     * "Any stylist": the engine picks a free one, least booked first, and the
+     * pick is confirmed against committed rows straight away. A stylist the
+     * database turns down (another instance booked them first) is released
+     * and the next free one is tried, so the request only fails once no
+     * stylist is left.
+     */
+    private AvailabilityEngine.Reservation assignAnyStylist(Appointment appointment, ServiceType type) {
+
+        Set<Long> rejected = new HashSet<>();
+
+        while (true) {
+            AvailabilityEngine.Reservation reservation = availabilityEngine.tryReserveAny(
+                    appointment.getStartTime(),
+                    appointment.getEndTime(),
+                    type,
+                    rejected
+            );
+
+            if (reservation == null) {
+                throw new ResponseStatusException(
+                        HttpStatus.CONFLICT,
+                        "No stylist is available at this time"
                 );
             }
+
+            int[] chairs;
+            try {
+                chairs = availabilityEngine.verifyCommitted(List.of(reservation));
+            } catch (RuntimeException e) {
+                availabilityEngine.release(reservation);
+                throw e;
+            }
+
+            if (chairs != null) {
+                appointment.setStylist(assignedStylist(reservation));
+                appointment.setChair(chairs[0]);
+                return reservation;
+            }
+
+            availabilityEngine.release(reservation);
+            rejected.add(reservation.stylistId());
         }
+    }
 
-        return appointmentRepo.save(appointment);
+    // Throws CONFLICT when another instance booked the time first
+    private int[] verifyCommitted(List<AvailabilityEngine.Reservation> reservations, String conflictMessage) {
+        int[] chairs = availabilityEngine.verifyCommitted(reservations);
+        if (chairs == null) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, conflictMessage);
+        }
+        return chairs;
+    }
+
+    // Cached copy when available, otherwise a reference (no query)
+    private Stylist assignedStylist(AvailabilityEngine.Reservation reservation) {
+        Stylist stylist = availabilityEngine.findActiveStylist(reservation.stylistId());
+        return stylist != null ? stylist : stylistRepo.getReferenceById(reservation.stylistId());
+    }
+
+    // ================= BATCH BOOKING =================
+
+    /**
+     * Books several services for one customer in a single transaction.
+     * Services and stylists are resolved with one query each, every
+     * interval is claimed in one pass (all or nothing), confirmed against
+     * committed rows, and the rows are written as one JDBC batch.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public List<AppointmentDTO> bookBatch(List<AppointmentRequest> requests) {
+
+        if (requests == null || requests.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "No appointments to book");
+        }
+
+        Long userId = requests.get(0).getUserId();
+
+        for (AppointmentRequest r : requests) {
+            if (r.getUserId() == null || !r.getUserId().equals(userId)) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "All appointments must belong to the same user");
+            }
+            if (r.getServiceId() == null || r.getAppointmentDate() == null || r.getAppointmentTime() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Service, date and time are required");
+            }
+        }
+
+        User user = userRepo.findById(userId)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.BAD_REQUEST, "User not found"));
+
+        Map<Long, ServiceItem> services = serviceRepo.findAllById(
+                        requests.stream().map(AppointmentRequest::getServiceId).distinct().toList())
+                .stream()
+                .collect(Collectors.toMap(ServiceItem::getId, Function.identity()));
+
+        Map<Long, Stylist> stylists = stylistRepo.findAllById(
+                        requests.stream()
+                                .map(AppointmentRequest::getStylistId)
+                                .filter(java.util.Objects::nonNull)
+                                .distinct()
+                                .toList())
+                .stream()
+                .collect(Collectors.toMap(Stylist::getId, Function.identity()));
+
+        List<Appointment> appointments = new ArrayList<>(requests.size());
+        List<AvailabilityEngine.Reservation> reservations = new ArrayList<>(requests.size());
+
+        try {
+            for (AppointmentRequest r : requests) {
+
+                ServiceItem serviceItem = services.get(r.getServiceId());
+                if (serviceItem == null) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Service not found");
+                }
+
+                LocalDateTime start = LocalDateTime.of(r.getAppointmentDate(), r.getAppointmentTime());
+                int duration = serviceItem.getDuration() > 0 ? serviceItem.getDuration() : 30;
+                LocalDateTime end = start.plusMinutes(duration);
+
+                Stylist stylist;
+                AvailabilityEngine.Reservation reservation;
+
+                if (r.getStylistId() != null) {
+                    stylist = stylists.get(r.getStylistId());
+                    if (stylist == null) {
+                        throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Stylist not found");
+                    }
+                    reservation = availabilityEngine.tryReserve(stylist.getId(), start, end, serviceItem.getType());
+                    if (reservation == null) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                                stylist.getName() + " is already booked at " + r.getAppointmentTime());
+                    }
+                } else {
+                    reservation = availabilityEngine.tryReserveAny(start, end, serviceItem.getType());
+                    if (reservation == null) {
+                        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                                "No stylist is available at " + r.getAppointmentTime());
+                    }
+                    stylist = assignedStylist(reservation);
+                }
+                reservations.add(reservation);
+
+                Appointment appointment = new Appointment();
+                appointment.setService(serviceItem);
+                appointment.setUser(user);
+                appointment.setAppointmentDate(start);
+                appointment.setStartTime(start);
+                appointment.setEndTime(end);
+                appointment.setAmount(r.getAmount());
+                appointment.setPaymentStatus(PaymentStatus.PENDING);
+                appointment.setStatus(AppointmentStatus.BOOKED);
+                appointment.setStylist(stylist);
+                appointment.setChair(reservation.chair());
+                appointments.add(appointment);
+            }
+
+            int[] chairs = verifyCommitted(reservations,
+                    "One of the selected slots was just booked. Please choose another time.");
+            for (int i = 0; i < chairs.length; i++) {
+                appointments.get(i).setChair(chairs[i]);
+            }
+
+            batchRepo.insertAll(appointments);
+
+        } catch (DataIntegrityViolationException e) {
+            reservations.forEach(availabilityEngine::release);
+            throw new ResponseStatusException(HttpStatus.CONFLICT,
+                    "One of the selected slots was just booked. Please choose another time.");
+        } catch (RuntimeException e) {
+            reservations.forEach(availabilityEngine::release);
+            throw e;
+        }
+
+        for (int i = 0; i < appointments.size(); i++) {
+            Appointment saved = appointments.get(i);
+            availabilityEngine.holdUntilCompletion(reservations.get(i), saved.getId());
+            events.publishEvent(new AppointmentBookedEvent(AppointmentSnapshot.of(saved)));
+        }
+
+        return appointments.stream().map(this::toDTO).toList();
     }
 
     // ================= STATUS =================
@@ -129,19 +435,9 @@ public class AppointmentService {
         return appointmentRepo.findAll();
     }
 
+    // Served from in-memory counters; see DashboardCounters
     public DashboardOverviewResponse getDashboardStats() {
-
-        long users = userRepo.count();
-        long appointments = appointmentRepo.count();
-        long pending = appointmentRepo.countByStatus(AppointmentStatus.BOOKED);
-        long completed = appointmentRepo.countByStatus(AppointmentStatus.COMPLETED);
-
-        return new DashboardOverviewResponse(
-                users,
-                appointments,
-                pending,
-                completed
-        );
+        return dashboardCounters.overview();
     }
 
     @Transactional(readOnly = true)
@@ -157,73 +453,34 @@ public class AppointmentService {
         }
 
         try {
-            System.out.println("DEBUG: Step 1 - Counts");
-            Long completedCount = 0L;
-            Double positiveRevenue = 0.0;
-            try {
-                completedCount = historyRepo.countByStatusAndRange(AppointmentStatus.COMPLETED, start, end);
-                positiveRevenue = historyRepo.sumAmountByStatusAndRange(AppointmentStatus.COMPLETED, start, end);
-                if (positiveRevenue == null) positiveRevenue = 0.0;
-                System.out.println("DEBUG: Counts Success");
-            } catch (Exception e) {
-                System.out.println("DEBUG: Step 1 Failed: " + e.getMessage());
-                e.printStackTrace();
+            // Count and revenue: the daily rollup, at most one row per day and service
+            long completedCount = 0;
+            double revenue = 0;
+
+            for (HistoryRollupRepository.ServiceTotal t : historyRollup.totalsByService(
+                    AppointmentStatus.COMPLETED, start.toLocalDate(), end.toLocalDate())) {
+                completedCount += t.entries();
+                revenue += t.revenue();
             }
 
-            double revenue = positiveRevenue;
-
-            System.out.println("DEBUG: Step 3 - Top Service");
-            String topServiceName = "—";
-            try {
-                List<Object[]> topServices = historyRepo.findTopServiceByHistory(AppointmentStatus.COMPLETED, start, end);
-                if (topServices != null && !topServices.isEmpty() && topServices.get(0).length > 0 && topServices.get(0)[0] != null) {
-                    topServiceName = topServices.get(0)[0].toString();
-                }
-                System.out.println("DEBUG: Top Service Success");
-            } catch (Exception e) {
-                System.out.println("DEBUG: Step 3 Failed: " + e.getMessage());
-            }
-
-            System.out.println("DEBUG: Step 4 - Top Customer");
-            String topCustomerName = "—";
-            try {
-                List<Object[]> topCustomers = historyRepo.findTopCustomerByHistory(AppointmentStatus.COMPLETED, start, end);
-                if (topCustomers != null && !topCustomers.isEmpty() && topCustomers.get(0).length > 0 && topCustomers.get(0)[0] != null) {
-                    topCustomerName = topCustomers.get(0)[0].toString();
-                }
-                System.out.println("DEBUG: Top Customer Success");
-            } catch (Exception e) {
-                System.out.println("DEBUG: Step 4 Failed: " + e.getMessage());
-            }
-
-            System.out.println("DEBUG: Step 5 - History Items");
-            List<AppointmentHistoryDTO> items = new java.util.ArrayList<>();
-            try {
-                items = historyRepo.findByStatusInAndChangedAtBetween(
-                        List.of(
-                            AppointmentStatus.COMPLETED, 
-                            AppointmentStatus.REFUNDED, 
-                            AppointmentStatus.CANCELLED_BY_ADMIN,
-                            AppointmentStatus.CANCELLED,
-                            AppointmentStatus.REJECTED
-                        ),
-                        start, end)
-                        .stream()
-                        .map(this::toHistoryDTO)
-                        .filter(java.util.Objects::nonNull)
-                        .sorted((a, b) -> {
-                            if (a.getChangedAt() == null || b.getChangedAt() == null) return 0;
-                            return b.getChangedAt().compareTo(a.getChangedAt());
-                        })
-                        .toList();
-                System.out.println("DEBUG: History Items Success, count: " + items.size());
-            } catch (Exception e) {
-                System.out.println("DEBUG: Step 5 Failed: " + e.getMessage());
-                e.printStackTrace();
+            // Top service and customer: the in-memory leaderboards
+            LeaderboardService.Window window = switch (range) {
+                case "TODAY" -> LeaderboardService.Window.TODAY;
+                case "MONTH" -> LeaderboardService.Window.MONTH;
+                default -> LeaderboardService.Window.YEAR;
+            };
+            String topServiceName = leaderboard.topServiceName(window);
+            String topCustomerName = leaderboard.topCustomerName(window);
+
+            // Items: one pass over a flat projection, already newest first
+            List<AppointmentHistoryDTO> items;
+            try (Stream<HistoryDashboardRow> rows = historyRepo.streamDashboardRows(
+                    DASHBOARD_HISTORY_STATUSES, start, end)) {
+                items = rows.map(HistoryDashboardRow::toDTO).toList();
             }
 
             return new DashboardHistoryResponse(
-                    completedCount != null ? completedCount.intValue() : 0,
+                    completedCount,
                     revenue,
                     topServiceName,
                     topCustomerName,
@@ -241,10 +498,7 @@ public class AppointmentService {
     @Transactional(readOnly = true)
     public List<AppointmentHistoryDTO> getHistoryByUserDTO(Long userId) {
 
-        return historyRepo.findByAppointment_User_Id(userId)
-                .stream()
-                .map(this::toHistoryDTO)
-                .toList();
+        return historyRepo.findDTOsByUserId(userId);
     }
 
     // ================= USER DTO =================
@@ -252,10 +506,7 @@ public class AppointmentService {
     @Transactional(readOnly = true)
     public List<AppointmentDTO> getAppointmentsForUser(Long userId) {
 
-        return appointmentRepo.findByUserId(userId)
-                .stream()
-                .map(this::toDTO)
-                .toList();
+        return appointmentRepo.findDTOsByUserId(userId);
     }
 
     // ================= HISTORY SAVE =================
@@ -263,16 +514,31 @@ public class AppointmentService {
     @Transactional(propagation = org.springframework.transaction.annotation.Propagation.REQUIRES_NEW)
     public void saveHistory(Appointment appointment, AppointmentStatus status) {
         try {
-            AppointmentHistory history = new AppointmentHistory();
-            history.setAppointment(appointment);
-            history.setStatus(status);
-            history.setChangedAt(LocalDateTime.now());
-            historyRepo.save(history);
+            recordHistory(appointment, status);
         } catch (Exception e) {
             System.err.println("Failed to save history: " + e.getMessage());
         }
     }
 
+    // Every history row goes through here so the daily rollup sees it
+    private void recordHistory(Appointment appointment, AppointmentStatus status) {
+
+        AppointmentHistory history = new AppointmentHistory();
+        history.setAppointment(appointment);
+        history.setStatus(status);
+        history.setChangedAt(LocalDateTime.now());
+        historyRepo.save(history);
+
+        events.publishEvent(new AppointmentHistoryRecordedEvent(
+                history.getId(),
+                appointment.getId(),
+                appointment.getService() != null ? appointment.getService().getId() : null,
+                appointment.getUser() != null ? appointment.getUser().getId() : null,
+                status,
+                history.getChangedAt(),
+                appointment.getAmount()));
+    }
+
     // ================= DTO CONVERSION =================
 
     private AppointmentDTO toDTO(Appointment a) {
@@ -286,11 +552,7 @@ public class AppointmentService {
                             : AppointmentStatus.PENDING.name()
             );
 
-            dto.setPaymentStatus(
-                    a.getPaymentStatus() != null
-                            ? a.getPaymentStatus()
-                            : "PENDING"
-            );
+            dto.setPaymentStatus(a.getPaymentStatus().name());
 
             dto.setAmount(a.getAmount());
 
@@ -355,158 +617,368 @@ public class AppointmentService {
 	@Transactional(readOnly = true)
 	public List<AppointmentHistoryDTO> getHistoryDTOByUser(Long userId) {
 
-	    return historyRepo.findByAppointment_User_Id(userId)
-	            .stream()
-	            .map(this::toHistoryDTO)
-	            .toList();
+	    return historyRepo.findDTOsByUserId(userId);
 	}
 	
 
 	@Transactional(readOnly = true)
 	public List<AppointmentDTO> getAllAppointmentsDTO() {
-	    return appointmentRepo.findAllWithDetails()
-	            .stream()
-	            .map(this::convertToDTO)
-	            .toList();
+	    return appointmentRepo.findAllDTOs();
 	}
 
+    /**
+     * One page of the admin listing, newest first. Fetches one row past the
+     * limit to learn whether another page exists, so no COUNT is needed.
+     */
+    @Transactional(readOnly = true)
+    public AppointmentPageResponse getAppointmentsPage(
+            String cursor, int limit, AppointmentStatus status, Long stylistId,
+            LocalDate from, LocalDate to) {
+
+        LocalDateTime cursorDate = null;
+        Long cursorId = null;
+
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+                cursorDate = LocalDateTime.parse(parts[0]);
+                cursorId = Long.parseLong(parts[1]);
+            } catch (RuntimeException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor");
+            }
+        }
+
+        List<AppointmentDTO> rows = appointmentRepo.findPageWithDetails(
+                status,
+                stylistId,
+                from != null ? from.atStartOfDay() : null,
+                to != null ? to.plusDays(1).atStartOfDay() : null,
+                cursorDate,
+                cursorId,
+                PageRequest.of(0, limit + 1));
+
+        boolean hasMore = rows.size() > limit;
+        List<AppointmentDTO> page = hasMore ? rows.subList(0, limit) : rows;
+
+        String nextCursor = null;
+        if (hasMore) {
+            // appointmentDate is the ISO LocalDateTime string, so it round-trips through parse
+            AppointmentDTO last = page.get(page.size() - 1);
+            nextCursor = Base64.getUrlEncoder().withoutPadding().encodeToString(
+                    (last.getAppointmentDate() + "|" + last.getId()).getBytes(StandardCharsets.UTF_8));
+        }
+
+        return new AppointmentPageResponse(
+                List.copyOf(page),
+                nextCursor,
+                hasMore);
+    }
+
 	public AppointmentDTO convertToDTO(Appointment a) {
         return toDTO(a);
     }
 	
-    @Transactional
+    // READ_COMMITTED so a retry re-reads the status another transaction just committed
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public AppointmentDTO updateStatus(Long id, AppointmentStatus status) {
 
-        System.out.println("AppointmentService: Updating status for " + id + " to " + status);
+        log.debug("Updating status for appt {} to {}", id, status);
         Appointment appointment = appointmentRepo.findById(id)
                 .orElseThrow(() ->
                         new ResponseStatusException(HttpStatus.NOT_FOUND, "Appointment not found"));
 
+        AppointmentStatus previousStatus = transitionStatus(appointment, status);
+
+        if (previousStatus == status) {
+            log.debug("Appt {} status already {}", id, status);
+            return convertToDTO(appointment);
+        }
+
+        log.debug("Appt {} status persisted to {}", id, status);
+
+        // Payment/refund fields set by the hooks are flushed at commit, version-checked
+        stateMachine.fire(appointment, previousStatus, status);
+
+        events.publishEvent(new AppointmentStatusChangedEvent(
+                AppointmentSnapshot.of(appointment), previousStatus));
+
+        return convertToDTO(appointment);
+    }
+
+    // ================= TRANSITION HOOKS =================
+
+    // 1. Legacy refund / revenue reversal for cases with no Razorpay refund to wait for
+    private void markRefunded(Appointment appointment, AppointmentStatus from, AppointmentStatus status) {
+
+        PaymentStatus payment = appointment.getPaymentStatus();
+        if (payment == PaymentStatus.REFUNDED || payment == PaymentStatus.REFUND_INITIATED
+                || refundsOnline(appointment, status)) {
+            return;
+        }
+
+        if (payment == PaymentStatus.PAID || from == AppointmentStatus.COMPLETED) {
+            appointment.setPaymentStatus(PaymentStatus.REFUNDED);
+        }
+    }
+
+    // 2. Loyalty & wallet cashback
+    private void creditCashback(Appointment appointment, AppointmentStatus from, AppointmentStatus status) {
+
+        User user = appointment.getUser();
+        if (from == AppointmentStatus.COMPLETED || user == null || appointment.getAmount() == null) {
+            return;
+        }
+
+        double cashback = appointment.getAmount() * 0.05;
+        user.setWalletBalance(user.getWalletBalance() + cashback);
+        int points = (int)(appointment.getAmount() / 100);
+        user.setLoyaltyPoints(user.getLoyaltyPoints() + points);
+        userRepo.save(user);
         try {
-            if (appointment.getStatus() == AppointmentStatus.CANCELLED_BY_ADMIN || 
-                appointment.getStatus() == AppointmentStatus.REFUNDED) {
-                System.out.println("AppointmentService: Status is already terminal: " + appointment.getStatus());
-                return convertToDTO(appointment);
-            }
+            notificationService.create(user, "Congratulations! You earned cashback.");
+        } catch (Exception e) {}
+    }
 
-            AppointmentStatus previousStatus = appointment.getStatus();
-            appointment.setStatus(status);
-            
-            // Explicit save to ensure persistence context is aware
-            appointment = appointmentRepo.save(appointment);
-            System.out.println("AppointmentService: Status persisted to " + status);
-
-            // 1. AUTO REFUND FOR ADMIN CANCELLATION OR REJECTION via Razorpay
-            if ((status == AppointmentStatus.CANCELLED_BY_ADMIN || status == AppointmentStatus.REJECTED) && 
-                "PAID".equalsIgnoreCase(appointment.getPaymentStatus()) &&
-                appointment.getRazorpayPaymentId() != null) {
-                
-                System.out.println("AppointmentService: Processing Razorpay refund for " + appointment.getRazorpayPaymentId());
-                try {
-                    com.razorpay.Refund refund = razorpayService.refund(appointment.getRazorpayPaymentId());
-                    
-                    String refundId = refund.get("id");
-                    String refundStatus = refund.get("status");
-                    
-                    if (refundId != null) appointment.setRefundId(refundId);
-                    if (refundStatus != null) appointment.setRefundStatus(refundStatus);
-                    
-                    if ("processed".equalsIgnoreCase(refundStatus)) {
-                         appointment.setPaymentStatus("REFUNDED");
-                         appointment.setStatus(AppointmentStatus.REFUNDED); // Update status to REFUNDED if fully processed
-                    } else {
-                        appointment.setPaymentStatus("REFUND_INITIATED");
-                    }
-                    
-                    String message = "Your appointment has been " + (status == AppointmentStatus.REJECTED ? "rejected" : "cancelled") + 
-                                     " by admin. Refund " + ("processed".equalsIgnoreCase(refundStatus) ? "completed" : "initiated") + ".";
-                    
-                    try {
-                        notificationService.create(appointment.getUser(), message);
-                        emailService.sendEmailusera(appointment.getUser().getEmail(), "Appointment Refund Update", message);
-                    } catch (Exception ex) {
-                        System.err.println("Notification failed: " + ex.getMessage());
-                    }
+    // 3. Waitlist notifications: triggerWaitlistNotifications
 
-                } catch (Exception e) {
-                    System.err.println("Razorpay refund failed: " + e.getMessage());
-                    appointment.setRefundStatus("FAILED");
-                    // Don't change payment status, let admin handle manual refund
-                }
-            } 
-            // 2. NON-PAID REJECTION/CANCELLATION NOTIFICATION
-            else if ((status == AppointmentStatus.REJECTED || status == AppointmentStatus.CANCELLED_BY_ADMIN) && 
-                     !"PAID".equalsIgnoreCase(appointment.getPaymentStatus())) {
-                 try {
-                    String message = "Your appointment has been " + (status == AppointmentStatus.REJECTED ? "rejected" : "cancelled") + " by admin.";
-                    notificationService.create(appointment.getUser(), message);
-                    emailService.sendEmailusera(appointment.getUser().getEmail(), "Appointment Update", message);
-                 } catch (Exception ex) {
-                     System.err.println("Notification failed: " + ex.getMessage());
-                 }
-            }
+    // 4. Timeline (history stays disabled until appointment_history.status is widened:
+    //    ALTER TABLE appointment_history MODIFY COLUMN status VARCHAR(50) NOT NULL;)
+    private void addTimelineEntry(Appointment appointment, AppointmentStatus from, AppointmentStatus status) {
+        try {
+            timelineService.addEntry(appointment, status);
+        } catch (Exception e) {
+            log.warn("Timeline entry failed for appt {}: {}", appointment.getId(), e.getMessage());
+        }
+    }
+
+    // 5. Auto refund via Razorpay for admin cancellation or rejection, else just notify
+    private void refundOrNotify(Appointment appointment, AppointmentStatus from, AppointmentStatus status) {
+
+        String action = status == AppointmentStatus.REJECTED ? "rejected" : "cancelled";
+
+        if (appointment.getPaymentStatus() != PaymentStatus.PAID) {
+            String message = "Your appointment has been " + action + " by admin.";
+            notifyUser(appointment, "Appointment Update", message);
+            return;
+        }
 
-            // 3. LEGACY REFUND / REVENUE REVERSAL (Handle cases not covered above, e.g. COMPLETED -> Cancelled)
-            boolean isCancelledStatus = (status == AppointmentStatus.CANCELLED || 
-                                         status == AppointmentStatus.REJECTED || 
-                                         status == AppointmentStatus.CANCELLED_BY_ADMIN);
-                                         
-            boolean notYetRefunded = !"REFUNDED".equalsIgnoreCase(appointment.getPaymentStatus()) && 
-                                     !"REFUND_INITIATED".equalsIgnoreCase(appointment.getPaymentStatus());
-
-            if (isCancelledStatus && notYetRefunded) {
-                 boolean wasPaid = "PAID".equalsIgnoreCase(appointment.getPaymentStatus());
-                 boolean wasRevenue = previousStatus == AppointmentStatus.COMPLETED;
-
-                 if (wasPaid || wasRevenue) {
-                     appointment.setPaymentStatus("REFUNDED"); 
-                 }
+        if (refundsOnline(appointment, status)) {
+            refundAfterCommit(appointment.getId(), appointment.getRazorpayPaymentId(), action + " by admin");
+        }
+    }
+
+    private static boolean refundsOnline(Appointment appointment, AppointmentStatus status) {
+        return (status == AppointmentStatus.CANCELLED_BY_ADMIN || status == AppointmentStatus.REJECTED)
+                && appointment.getPaymentStatus() == PaymentStatus.PAID
+                && appointment.getRazorpayPaymentId() != null;
+    }
+
+    // ================= REFUND =================
+
+    /**
+     * Calls Razorpay once the transaction that decided on the refund has
+     * committed, so a rollback can never leave a customer refunded for an
+     * appointment that is still active, and a retried request finds the
+     * status already moved and does not refund again. The outcome is
+     * recorded in its own transaction.
+     */
+    private void refundAfterCommit(Long appointmentId, String razorpayPaymentId, String reason) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refund(appointmentId, razorpayPaymentId, reason);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                refund(appointmentId, razorpayPaymentId, reason);
             }
+        });
+    }
 
-            // 4. LOYALTY & WALLET CASHBACK
-            if (status == AppointmentStatus.COMPLETED && previousStatus != AppointmentStatus.COMPLETED) {
-                User user = appointment.getUser();
-                if (user != null && appointment.getAmount() != null) {
-                    double cashback = appointment.getAmount() * 0.05;
-                    user.setWalletBalance(user.getWalletBalance() + cashback);
-                    int points = (int)(appointment.getAmount() / 100);
-                    user.setLoyaltyPoints(user.getLoyaltyPoints() + points);
-                    userRepo.save(user);
-                    try {
-                        notificationService.create(user, "Congratulations! You earned cashback.");
-                    } catch (Exception e) {}
-                }
+    private void refund(Long appointmentId, String razorpayPaymentId, String reason) {
+
+        log.info("Processing Razorpay refund for {}", razorpayPaymentId);
+
+        String refundId = null;
+        String refundStatus;
+        try {
+            Refund refund = razorpayService.refund(razorpayPaymentId);
+            refundId = refund.get("id");
+            refundStatus = refund.get("status");
+        } catch (Exception e) {
+            log.error("Razorpay refund failed for appt {}: {}", appointmentId, e.getMessage());
+            refundStatus = "FAILED";
+        }
+
+        String id = refundId;
+        String status = refundStatus;
+        try {
+            refundTx.executeWithoutResult(tx -> recordRefund(appointmentId, id, status, reason));
+        } catch (RuntimeException e) {
+            // The money has moved; say so loudly so an admin can fix the row by hand
+            log.error("Refund {} ({}) for appt {} could not be recorded", id, status, appointmentId, e);
+        }
+    }
+
+    private void recordRefund(Long appointmentId, String refundId, String refundStatus, String reason) {
+
+        Appointment appointment = appointmentRepo.findByIdWithUserAndService(appointmentId)
+                .orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.NOT_FOUND, "Appointment not found"));
+
+        boolean processed = "processed".equalsIgnoreCase(refundStatus);
+
+        // Status first: the CAS refreshes the entity, dropping unflushed changes
+        AppointmentStatus previousStatus = processed
+                ? transitionStatus(appointment, AppointmentStatus.REFUNDED)
+                : null;
+
+        if (refundId != null) appointment.setRefundId(refundId);
+        if (refundStatus != null) appointment.setRefundStatus(refundStatus);
+
+        if ("FAILED".equals(refundStatus)) {
+            // Don't change payment status, let admin handle manual refund
+            return;
+        }
+
+        appointment.setPaymentStatus(processed ? PaymentStatus.REFUNDED : PaymentStatus.REFUND_INITIATED);
+
+        if (previousStatus != null && previousStatus != AppointmentStatus.REFUNDED) {
+            stateMachine.fire(appointment, previousStatus, AppointmentStatus.REFUNDED);
+            events.publishEvent(new AppointmentStatusChangedEvent(
+                    AppointmentSnapshot.of(appointment), previousStatus));
+        }
+
+        String message = "Your appointment has been " + reason +
+                         ". Refund " + (processed ? "completed" : "initiated") + ".";
+        notifyUser(appointment, "Appointment Refund Update", message);
+    }
+
+    private void notifyUser(Appointment appointment, String subject, String message) {
+        try {
+            notificationService.create(appointment.getUser(), message);
+            emailService.sendEmailusera(appointment.getUser().getEmail(), subject, message);
+        } catch (Exception ex) {
+            log.warn("Notification failed for appt {}: {}", appointment.getId(), ex.getMessage());
+        }
+    }
+
+    // ================= PAYMENT =================
+
+    @Transactional(isolation = Isolation.READ_COMMITTED)
+    public Appointment markPaid(Long id, String razorpayPaymentId) {
+
+        Appointment appointment = appointmentRepo.findByIdWithUserAndService(id)
+                .orElseThrow(() ->
+                        new ResponseStatusException(HttpStatus.NOT_FOUND, "Appointment not found"));
+
+        AppointmentStatus previousStatus;
+        try {
+            previousStatus = transitionStatus(appointment, AppointmentStatus.COMPLETED);
+        } catch (ResponseStatusException e) {
+            // The CAS refreshed the entity, so this is the status that blocked it
+            if (!AvailabilityEngine.RELEASED_STATUSES.contains(appointment.getStatus())) {
+                throw e;
             }
-            
-            // 5. WAITLIST NOTIFICATIONS
-            if (status == AppointmentStatus.CANCELLED || 
-                status == AppointmentStatus.CANCELLED_BY_ADMIN || 
-                status == AppointmentStatus.REJECTED || 
-                status == AppointmentStatus.REFUNDED) {
-                triggerWaitlistNotifications(appointment);
+            return refundLatePayment(appointment, razorpayPaymentId);
+        }
+
+        appointment.setPaymentStatus(PaymentStatus.PAID);
+        appointment.setRazorpayPaymentId(razorpayPaymentId);
+
+        // A replayed callback finds it COMPLETED already and only re-stamps
+        // the payment: no second history row, hooks, receipt or status event
+        if (previousStatus == AppointmentStatus.COMPLETED) {
+            return appointment;
+        }
+
+        stateMachine.fire(appointment, previousStatus, AppointmentStatus.COMPLETED);
+        recordHistory(appointment, AppointmentStatus.COMPLETED);
+
+        // Queued in this transaction, so a rolled-back payment never sends a receipt
+        try {
+            emailService.sendPaymentReceipt(appointment);
+        } catch (Exception e) {
+            log.warn("Receipt email failed for appt {}: {}", id, e.getMessage());
+        }
+
+        events.publishEvent(new AppointmentStatusChangedEvent(
+                AppointmentSnapshot.of(appointment), previousStatus));
+
+        return appointment;
+    }
+
+    /**
+     * A payment captured after the appointment was cancelled: it is kept on
+     * record and refunded once this transaction commits. A replayed callback
+     * carries the payment id already stored and changes nothing.
+     */
+    private Appointment refundLatePayment(Appointment appointment, String razorpayPaymentId) {
+
+        if (razorpayPaymentId == null || razorpayPaymentId.equals(appointment.getRazorpayPaymentId())) {
+            return appointment;
+        }
+
+        log.warn("Payment {} captured for appt {} in status {}; refunding it",
+                razorpayPaymentId, appointment.getId(), appointment.getStatus());
+
+        appointment.setPaymentStatus(PaymentStatus.PAID);
+        appointment.setRazorpayPaymentId(razorpayPaymentId);
+
+        String reason = switch (appointment.getStatus()) {
+            case CANCELLED_BY_ADMIN -> "cancelled by admin";
+            case REJECTED -> "rejected by admin";
+            default -> "cancelled";
+        };
+        refundAfterCommit(appointment.getId(), razorpayPaymentId, reason);
+        return appointment;
+    }
+
+    // ================= STATUS CAS =================
+
+    /**
+     * Moves the appointment to {@code target} with
+     * {@code UPDATE ... WHERE id = ? AND status = ?}, re-reading the status
+     * and retrying when another writer got there first. The winning UPDATE
+     * holds the row lock until commit, so the follow-up field changes cannot
+     * be overwritten either. Transitions the state machine does not allow
+     * are rejected with 409 before anything is written.
+     *
+     * Returns the status it moved from; that equals {@code target} when the
+     * appointment was already there and nothing was written.
+     */
+    private AppointmentStatus transitionStatus(Appointment appointment, AppointmentStatus target) {
+
+        AppointmentStatus current = appointment.getStatus();
+
+        for (int attempt = 0; attempt < STATUS_CAS_ATTEMPTS; attempt++) {
+
+            if (current != appointment.getStatus()) {
+                entityManager.refresh(appointment);
             }
 
-            // Final save (redundant but safe)
-            appointment = appointmentRepo.save(appointment);
+            if (current == target) {
+                return current;
+            }
 
-            // History & Timeline
-            // TODO: Uncomment after fixing database: ALTER TABLE appointment_history MODIFY COLUMN status VARCHAR(50) NOT NULL;
-            // saveHistory(appointment, appointment.getStatus());
-            try {
-                timelineService.addEntry(appointment, status);
-            } catch (Exception e) {}
-            
-            if (entityManager != null) {
-                try { entityManager.flush(); } catch (Exception e) { System.err.println("Flush failed: " + e.getMessage()); }
+            if (!stateMachine.canTransition(current, target)) {
+                throw new ResponseStatusException(HttpStatus.CONFLICT,
+                        "Cannot move appointment from " + current + " to " + target);
             }
 
-            return convertToDTO(appointment);
+            if (appointmentRepo.compareAndSetStatus(appointment.getId(), current, target) == 1) {
+                // Pick up the new status and version so the commit-time flush matches the row
+                entityManager.refresh(appointment);
+                return current;
+            }
 
-        } catch (Exception e) {
-            System.err.println("CRITICAL ERROR IN UPDATE STATUS: " + e.getMessage());
-            e.printStackTrace();
-            return convertToDTO(appointment);
+            current = appointmentRepo.findStatusById(appointment.getId())
+                    .orElseThrow(() ->
+                            new ResponseStatusException(HttpStatus.NOT_FOUND, "Appointment not found"));
         }
+
+        throw new ResponseStatusException(HttpStatus.CONFLICT,
+                "Appointment was updated concurrently, please retry");
     }
 
     private void triggerWaitlistNotifications(Appointment a) {
@@ -560,10 +1032,7 @@ public class AppointmentService {
             default -> start = Year.now().atDay(1).atStartOfDay();
         }
 
-        return historyRepo.findByStatusInAndChangedAtBetween(List.of(AppointmentStatus.COMPLETED), start, end)
-                .stream()
-                .map(this::toHistoryDTO)
-                .collect(java.util.stream.Collectors.toList());
+        return historyRepo.findDTOsByStatusInAndChangedAtBetween(List.of(AppointmentStatus.COMPLETED), start, end);
     }
 
     @Transactional(readOnly = true)
@@ -572,24 +1041,4 @@ public class AppointmentService {
                 .map(this::toDTO)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Appointment not found"));
     }
-
-    private AppointmentHistoryDTO toHistoryDTO(AppointmentHistory h) {
-        if (h == null || h.getAppointment() == null) return null;
-        
-        String serviceName = "N/A";
-        if (h.getAppointment().getService() != null) {
-            serviceName = h.getAppointment().getService().getName();
-        }
-
-        return new AppointmentHistoryDTO(
-                h.getAppointment().getId(),
-                serviceName,
-                (h.getAppointment().getUser() != null) ? h.getAppointment().getUser().getName() : "N/A",
-                (h.getAppointment().getAppointmentDate() != null) ? h.getAppointment().getAppointmentDate().toLocalDate().toString() : "N/A",
-                (h.getAppointment().getAppointmentDate() != null) ? h.getAppointment().getAppointmentDate().toLocalTime().toString() : "N/A",
-                (h.getStatus() != null) ? h.getStatus().name() : "N/A",
-                h.getAppointment().getAmount(),
-                h.getChangedAt()
-        );
-    }
 }
@@ -0,0 +1,100 @@
+package com.haircraft.backend.service;
+
+import static com.haircraft.backend.Entity.AppointmentStatus.BOOKED;
+import static com.haircraft.backend.Entity.AppointmentStatus.CANCELLED;
+import static com.haircraft.backend.Entity.AppointmentStatus.CANCELLED_BY_ADMIN;
+import static com.haircraft.backend.Entity.AppointmentStatus.COMPLETED;
+import static com.haircraft.backend.Entity.AppointmentStatus.CONFIRMED;
+import static com.haircraft.backend.Entity.AppointmentStatus.IN_PROGRESS;
+import static com.haircraft.backend.Entity.AppointmentStatus.PENDING;
+import static com.haircraft.backend.Entity.AppointmentStatus.REFUNDED;
+import static com.haircraft.backend.Entity.AppointmentStatus.REJECTED;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.haircraft.backend.Entity.Appointment;
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Allowed appointment status transitions and the side effects each one runs.
+ *
+ * Both are tables keyed by (from, to), so checking a transition is one
+ * lookup and firing it walks a prebuilt hook list. Hooks run in
+ * registration order inside the caller's transaction, so an exception from
+ * one propagates and rolls the whole transition back. Hooks whose failure
+ * should not undo the transition catch it themselves, and anything that
+ * cannot be rolled back (a payment refund) is deferred until after commit.
+ */
+public class AppointmentStateMachine {
+
+    @FunctionalInterface
+    public interface TransitionHook {
+        void apply(Appointment appointment, AppointmentStatus from, AppointmentStatus to);
+    }
+
+    private static final Map<AppointmentStatus, Set<AppointmentStatus>> TRANSITIONS =
+            new EnumMap<>(AppointmentStatus.class);
+
+    static {
+        TRANSITIONS.put(PENDING, EnumSet.of(BOOKED, CONFIRMED, COMPLETED, CANCELLED, REJECTED, CANCELLED_BY_ADMIN));
+        TRANSITIONS.put(BOOKED, EnumSet.of(CONFIRMED, IN_PROGRESS, COMPLETED, CANCELLED, REJECTED, CANCELLED_BY_ADMIN));
+        TRANSITIONS.put(CONFIRMED, EnumSet.of(IN_PROGRESS, COMPLETED, CANCELLED, REJECTED, CANCELLED_BY_ADMIN));
+        TRANSITIONS.put(IN_PROGRESS, EnumSet.of(COMPLETED, CANCELLED_BY_ADMIN));
+        // Revenue reversals: a completed visit can still be cancelled or refunded
+        TRANSITIONS.put(COMPLETED, EnumSet.of(CANCELLED, REJECTED, CANCELLED_BY_ADMIN, REFUNDED));
+        TRANSITIONS.put(CANCELLED, EnumSet.of(REFUNDED));
+        TRANSITIONS.put(REJECTED, EnumSet.of(REFUNDED));
+        // Set by the refund hook once Razorpay reports the refund processed
+        TRANSITIONS.put(CANCELLED_BY_ADMIN, EnumSet.of(REFUNDED));
+        TRANSITIONS.put(REFUNDED, EnumSet.noneOf(AppointmentStatus.class));
+    }
+
+    private final Map<AppointmentStatus, Map<AppointmentStatus, List<TransitionHook>>> hooks =
+            new EnumMap<>(AppointmentStatus.class);
+
+    public AppointmentStateMachine() {
+        for (AppointmentStatus from : AppointmentStatus.values()) {
+            Map<AppointmentStatus, List<TransitionHook>> byTarget = new EnumMap<>(AppointmentStatus.class);
+            for (AppointmentStatus to : TRANSITIONS.get(from)) {
+                byTarget.put(to, new ArrayList<>());
+            }
+            hooks.put(from, byTarget);
+        }
+    }
+
+    /**
+     * Registers a hook on every allowed transition into one of {@code targets}.
+     */
+    public AppointmentStateMachine onEnter(Set<AppointmentStatus> targets, TransitionHook hook) {
+        for (Map<AppointmentStatus, List<TransitionHook>> byTarget : hooks.values()) {
+            for (AppointmentStatus to : targets) {
+                List<TransitionHook> list = byTarget.get(to);
+                if (list != null) {
+                    list.add(hook);
+                }
+            }
+        }
+        return this;
+    }
+
+    public boolean canTransition(AppointmentStatus from, AppointmentStatus to) {
+        return TRANSITIONS.get(from).contains(to);
+    }
+
+    public void fire(Appointment appointment, AppointmentStatus from, AppointmentStatus to) {
+
+        List<TransitionHook> list = hooks.get(from).get(to);
+        if (list == null) {
+            return;
+        }
+
+        for (TransitionHook hook : list) {
+            hook.apply(appointment, from, to);
+        }
+    }
+}
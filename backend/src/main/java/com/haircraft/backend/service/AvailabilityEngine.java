@@ -0,0 +1,922 @@
+package com.haircraft.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceType;
+import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.AvailabilityCalendarResponse;
+import com.haircraft.backend.dto.AvailableSlotDTO;
+import com.haircraft.backend.event.AppointmentBookedEvent;
+import com.haircraft.backend.event.AppointmentSnapshot;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.BookingGuardRepository;
+import com.haircraft.backend.repository.StylistRepository;
+
+/**
+ * In-memory slot index: for every loaded day, a per-stylist occupancy
+ * counter for each 30-minute bucket, plus a bitmap of the buckets where
+ * the stylist is at capacity.
+ *
+ * A stylist with capacity N can serve N FIXED services at once. A
+ * CONTINUOUS service needs the stylist completely free for its whole
+ * block and then takes all N chairs, so nothing is squeezed in beside it.
+ *
+ * Days from today up to {@link #CACHE_HORIZON_DAYS} ahead are read from
+ * the database on first use and then kept current by booking and
+ * status-change events, so slot lookups never touch the database. Events
+ * only reach the instance that handled the change, so cached days are also
+ * re-read every {@code availability.refresh-ms} to pick up other replicas'
+ * bookings. Days outside the horizon are read straight from the database
+ * and never cached.
+ *
+ * Bookings reserve their buckets here before the row is inserted. Each
+ * stylist-day is its own lock, so two requests for the same stylist and
+ * day are serialized while everyone else proceeds in parallel. The
+ * reservation is then re-checked against committed rows under the
+ * stylist's row lock (see {@link #verifyCommitted}), which is what keeps
+ * replicas with different caches from double-booking.
+ */
+@Service
+public class AvailabilityEngine {
+
+    public static final int SLOT_MINUTES = 30;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+
+    public static final LocalTime OPENING_TIME = LocalTime.of(9, 0);
+    public static final LocalTime CLOSING_TIME = LocalTime.of(21, 0);
+
+    // Days cached from today on; the booking UI never looks further ahead
+    public static final int CACHE_HORIZON_DAYS = 62;
+
+    // Reads of a day that keeps changing before it can be installed
+    private static final int LOAD_ATTEMPTS = 3;
+
+    // Statuses that give the stylist's time back
+    public static final Set<AppointmentStatus> RELEASED_STATUSES = EnumSet.of(
+            AppointmentStatus.CANCELLED,
+            AppointmentStatus.CANCELLED_BY_ADMIN,
+            AppointmentStatus.REJECTED,
+            AppointmentStatus.REFUNDED
+    );
+
+    private final AppointmentRepository appointmentRepo;
+    private final StylistRepository stylistRepo;
+    private final BookingGuardRepository bookingGuard;
+
+    private final ConcurrentHashMap<LocalDate, DaySchedule> days = new ConcurrentHashMap<>();
+
+    private volatile List<Stylist> activeStylists;
+    private volatile Map<Long, Integer> capacities;
+
+    // Placeholder keys for reservations whose row has no id yet
+    private final AtomicLong pendingIds = new AtomicLong();
+
+    // Last change seen for each cacheable day, cached or not, so a load
+    // that started earlier will not install a copy that predates it
+    private final AtomicLong changeSeq = new AtomicLong();
+    private final ConcurrentHashMap<LocalDate, Long> lastChange = new ConcurrentHashMap<>();
+
+    public AvailabilityEngine(
+            AppointmentRepository appointmentRepo,
+            StylistRepository stylistRepo,
+            BookingGuardRepository bookingGuard
+    ) {
+        this.appointmentRepo = appointmentRepo;
+        this.stylistRepo = stylistRepo;
+        this.bookingGuard = bookingGuard;
+    }
+
+    // ================= QUERIES =================
+
+    /**
+     * Start times (HH:mm) between opening and closing that cannot be booked.
+     * With a stylist, a slot is blocked when that stylist is busy; without
+     * one, only when every active stylist is busy.
+     */
+    public List<String> getBookedSlots(LocalDate date, Long stylistId) {
+
+        DaySchedule day = day(date);
+        long blocked;
+
+        if (stylistId != null) {
+            blocked = day.mask(stylistId);
+        } else {
+            List<Stylist> stylists = activeStylists();
+            if (stylists.isEmpty()) {
+                return new ArrayList<>();
+            }
+            blocked = -1L;
+            for (Stylist s : stylists) {
+                blocked &= day.mask(s.getId());
+            }
+        }
+
+        return toSlotLabels(blocked);
+    }
+
+    /**
+     * Blocked slots for a run of days, per stylist and for "any stylist".
+     * Days that are not cached yet are read with one range query.
+     */
+    public AvailabilityCalendarResponse getCalendar(LocalDate from, int dayCount, List<Long> stylistIds) {
+
+        loadRange(from, dayCount);
+
+        List<Long> ids = stylistIds != null && !stylistIds.isEmpty()
+                ? stylistIds
+                : activeStylists().stream().map(Stylist::getId).toList();
+
+        List<AvailabilityCalendarResponse.Day> result = new ArrayList<>(dayCount);
+
+        for (int i = 0; i < dayCount; i++) {
+            LocalDate date = from.plusDays(i);
+            DaySchedule day = day(date);
+
+            Map<Long, List<String>> perStylist = new LinkedHashMap<>();
+            long allBusy = ids.isEmpty() ? 0L : -1L;
+
+            for (Long id : ids) {
+                long mask = day.mask(id);
+                perStylist.put(id, toSlotLabels(mask));
+                allBusy &= mask;
+            }
+
+            result.add(new AvailabilityCalendarResponse.Day(date, toSlotLabels(allBusy), perStylist));
+        }
+
+        return new AvailabilityCalendarResponse(from, dayCount, SLOT_MINUTES, result);
+    }
+
+    /**
+     * Earliest start times, from now on, where a service of the given
+     * length fits. Each candidate day is a few shifts and ANDs over the
+     * stylist's free-bucket bitmap, so no appointments are scanned.
+     *
+     * @param stylistId a specific stylist, or {@code null} for any active one
+     */
+    public List<AvailableSlotDTO> findNextAvailable(
+            int durationMinutes, ServiceType type, Long stylistId, int dayCount, int limit) {
+        return findNextAvailable(LocalDateTime.now(), durationMinutes, type, stylistId, dayCount, limit);
+    }
+
+    List<AvailableSlotDTO> findNextAvailable(
+            LocalDateTime now, int durationMinutes, ServiceType type, Long stylistId, int dayCount, int limit) {
+
+        LocalDate today = now.toLocalDate();
+        loadRange(today, dayCount);
+
+        List<Stylist> candidates = new ArrayList<>();
+        if (stylistId != null) {
+            Stylist s = findActiveStylist(stylistId);
+            if (s != null) candidates.add(s);
+        } else {
+            candidates.addAll(activeStylists());
+        }
+
+        int length = Math.max(1, (durationMinutes + SLOT_MINUTES - 1) / SLOT_MINUTES);
+        int opening = startSlot(LocalDate.EPOCH.atTime(OPENING_TIME));
+        int closing = startSlot(LocalDate.EPOCH.atTime(CLOSING_TIME));
+        boolean continuous = type == ServiceType.CONTINUOUS;
+
+        List<AvailableSlotDTO> result = new ArrayList<>(limit);
+
+        for (int i = 0; i < dayCount && result.size() < limit; i++) {
+            LocalDate date = today.plusDays(i);
+            DaySchedule day = day(date);
+
+            // Valid starts: inside opening hours, the whole service ends by
+            // closing, and (today) not already in the past
+            int first = opening;
+            if (i == 0) {
+                int nowSlot = (now.getHour() * 60 + now.getMinute() + SLOT_MINUTES - 1) / SLOT_MINUTES;
+                first = Math.max(first, nowSlot);
+            }
+            int last = closing - length;
+            if (last < first) continue;
+            long window = bitRange(first, last + 1);
+
+            long[] starts = new long[candidates.size()];
+            long any = 0L;
+            for (int c = 0; c < candidates.size(); c++) {
+                long free = ~day.blockedMask(candidates.get(c).getId(), continuous);
+                long fits = free;
+                for (int k = 1; k < length; k++) {
+                    fits &= free >>> k;
+                }
+                starts[c] = fits & window;
+                any |= starts[c];
+            }
+
+            while (any != 0 && result.size() < limit) {
+                int slot = Long.numberOfTrailingZeros(any);
+                any &= any - 1;
+
+                for (int c = 0; c < candidates.size(); c++) {
+                    if ((starts[c] & (1L << slot)) != 0) {
+                        Stylist s = candidates.get(c);
+                        result.add(new AvailableSlotDTO(
+                                date.toString(),
+                                slotLabel(slot),
+                                s.getId(),
+                                s.getName()));
+                        break;
+                    }
+                }
+            }
+        }
+
+        return result;
+    }
+
+    public List<Stylist> activeStylists() {
+        List<Stylist> stylists = activeStylists;
+        if (stylists == null) {
+            stylists = List.copyOf(stylistRepo.findByActiveTrue());
+            activeStylists = stylists;
+        }
+        return stylists;
+    }
+
+    public Stylist findActiveStylist(Long stylistId) {
+        for (Stylist s : activeStylists()) {
+            if (s.getId().equals(stylistId)) {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    int capacityOf(Long stylistId) {
+        Map<Long, Integer> caps = capacities;
+        if (caps == null) {
+            caps = loadCapacities();
+        }
+        return caps.getOrDefault(stylistId, 1);
+    }
+
+    private Map<Long, Integer> loadCapacities() {
+        Map<Long, Integer> caps = new HashMap<>();
+        for (Stylist s : stylistRepo.findAll()) {
+            caps.put(s.getId(), Math.max(1, s.getCapacity()));
+        }
+        capacities = caps;
+        return caps;
+    }
+
+    /**
+     * Reloads stylists; call after stylists are added or edited. Cached
+     * days pick up capacity changes in place.
+     */
+    public void refreshStylists() {
+        activeStylists = null;
+        loadCapacities();
+        days.values().forEach(DaySchedule::refreshCapacities);
+    }
+
+    // ================= RESERVATIONS =================
+
+    /**
+     * Atomically claims the stylist's buckets for [start, end). The check
+     * only touches the buckets the service spans.
+     *
+     * @return the reservation, or {@code null} if the stylist is full in
+     *         any of those buckets
+     */
+    public Reservation tryReserve(Long stylistId, LocalDateTime start, LocalDateTime end, ServiceType type) {
+        LocalDate date = start.toLocalDate();
+        int from = startSlot(start);
+        int to = endSlot(start, end);
+        Long key = -pendingIds.incrementAndGet();
+        boolean continuous = type == ServiceType.CONTINUOUS;
+
+        // First use reads stylist capacities; keep that out of the map lock
+        capacityOf(stylistId);
+
+        int chair;
+        if (isCacheable(date)) {
+            // Claimed inside computeIfPresent() so a concurrent refresh cannot
+            // drop it; the day itself is loaded beforehand, outside the map lock
+            int[] claimed = new int[1];
+            DaySchedule held = null;
+            for (int attempt = 0; attempt < LOAD_ATTEMPTS && held == null; attempt++) {
+                day(date);
+                held = days.computeIfPresent(date, (d, day) -> {
+                    claimed[0] = day.tryAdd(stylistId, key, from, to, continuous);
+                    return day;
+                });
+            }
+            chair = held != null ? claimed[0] : load(date).tryAdd(stylistId, key, from, to, continuous);
+        } else {
+            chair = load(date).tryAdd(stylistId, key, from, to, continuous);
+        }
+
+        if (chair < 0) {
+            return null;
+        }
+        return new Reservation(date, stylistId, key, chair, from, to, continuous);
+    }
+
+    /**
+     * Walk-in mode: claims [start, end) with the first active stylist who
+     * can take it, trying the least-booked stylist of that day first.
+     *
+     * @return the reservation, or {@code null} if every stylist is full
+     */
+    public Reservation tryReserveAny(LocalDateTime start, LocalDateTime end, ServiceType type) {
+        return tryReserveAny(start, end, type, Set.of());
+    }
+
+    /**
+     * As {@link #tryReserveAny(LocalDateTime, LocalDateTime, ServiceType)},
+     * skipping {@code excluded} stylists, e.g. ones the database already
+     * turned down for this booking.
+     */
+    public Reservation tryReserveAny(LocalDateTime start, LocalDateTime end, ServiceType type, Set<Long> excluded) {
+        LocalDate date = start.toLocalDate();
+        DaySchedule day = day(date);
+
+        List<Stylist> candidates = new ArrayList<>(activeStylists());
+        candidates.sort(Comparator
+                .comparingInt((Stylist s) -> day.bookedSlots(s.getId()))
+                .thenComparing(Stylist::getId));
+
+        for (Stylist s : candidates) {
+            if (excluded.contains(s.getId())) {
+                continue;
+            }
+            Reservation reservation = tryReserve(s.getId(), start, end, type);
+            if (reservation != null) {
+                return reservation;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Ties the reservation to the inserted row once the surrounding
+     * transaction commits, and gives the buckets back if it rolls back.
+     * Outside a transaction the row is already committed.
+     */
+    public void holdUntilCompletion(Reservation reservation, Long appointmentId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            confirm(reservation, appointmentId);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    confirm(reservation, appointmentId);
+                } else {
+                    release(reservation);
+                }
+            }
+        });
+    }
+
+    public void release(Reservation reservation) {
+        days.computeIfPresent(reservation.date(), (date, day) -> {
+            day.remove(reservation.stylistId(), reservation.key());
+            return day;
+        });
+    }
+
+    private void confirm(Reservation reservation, Long appointmentId) {
+        days.computeIfPresent(reservation.date(), (date, day) -> {
+            day.rekey(reservation.stylistId(), reservation.key(), appointmentId);
+            return day;
+        });
+    }
+
+    /**
+     * Database backstop for reservations made against this instance's
+     * cache, which can lag behind other replicas. One statement locks the
+     * stylists' rows in id order, so bookings for the same stylist
+     * serialize across instances, and returns their committed bookings for
+     * those days, over which the reservations are then replayed.
+     *
+     * Must run inside the booking transaction at READ COMMITTED, so the
+     * re-read sees rows committed while it waited for the lock.
+     *
+     * @return the chair each reservation gets against committed state, in
+     *         order, or {@code null} if one no longer fits; the cached
+     *         copies of those days are then dropped so they reload
+     */
+    public int[] verifyCommitted(List<Reservation> reservations) {
+
+        if (reservations.isEmpty()) {
+            return new int[0];
+        }
+
+        List<Long> stylistIds = reservations.stream()
+                .map(Reservation::stylistId)
+                .distinct()
+                .sorted()
+                .toList();
+        LocalDate first = reservations.stream().map(Reservation::date).min(Comparator.naturalOrder()).get();
+        LocalDate last = reservations.stream().map(Reservation::date).max(Comparator.naturalOrder()).get();
+
+        Map<LocalDate, DaySchedule> committed = new HashMap<>();
+        for (Object[] row : bookingGuard.lockStylistOccupancy(
+                stylistIds,
+                first.atStartOfDay(),
+                last.plusDays(1).atStartOfDay(),
+                RELEASED_STATUSES)) {
+            LocalDateTime start = (LocalDateTime) row[2];
+            addRow(committed.computeIfAbsent(start.toLocalDate(), d -> new DaySchedule(this::capacityOf)), row);
+        }
+
+        int[] chairs = new int[reservations.size()];
+        for (int i = 0; i < reservations.size(); i++) {
+            Reservation r = reservations.get(i);
+            DaySchedule day = committed.computeIfAbsent(r.date(), d -> new DaySchedule(this::capacityOf));
+
+            chairs[i] = day.tryAdd(r.stylistId(), r.key(), r.fromSlot(), r.toSlot(), r.continuous());
+            if (chairs[i] < 0) {
+                reservations.forEach(stale -> days.remove(stale.date()));
+                return null;
+            }
+        }
+        return chairs;
+    }
+
+    /**
+     * @param chair which of the stylist's parallel chairs the booking got;
+     *              stored on the row so the database key can tell
+     *              same-time bookings of one stylist apart
+     */
+    public record Reservation(
+            LocalDate date,
+            Long stylistId,
+            Long key,
+            int chair,
+            int fromSlot,
+            int toSlot,
+            boolean continuous
+    ) {
+    }
+
+    // ================= EVENTS =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooked(AppointmentBookedEvent event) {
+        apply(event.appointment());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        apply(event.appointment());
+    }
+
+    private void apply(AppointmentSnapshot a) {
+        if (a.id() == null || a.stylistId() == null || a.startTime() == null) {
+            return;
+        }
+
+        LocalDate changed = a.startTime().toLocalDate();
+        if (!isCacheable(changed)) {
+            return;
+        }
+        capacityOf(a.stylistId());
+
+        // Only days already cached need patching; anything else is read
+        // fresh from the database on first use. Every change is stamped so a
+        // load that started earlier will not install a copy that predates it.
+        days.compute(changed, (date, day) -> {
+            lastChange.put(date, changeSeq.incrementAndGet());
+            if (day == null) {
+                return null;
+            }
+            if (RELEASED_STATUSES.contains(a.status())) {
+                day.remove(a.stylistId(), a.id());
+            } else {
+                day.add(a.stylistId(), a.id(), startSlot(a.startTime()), endSlot(a.startTime(), a.endTime()),
+                        a.serviceType() == ServiceType.CONTINUOUS, a.chair());
+            }
+            return day;
+        });
+    }
+
+    // Past days are never queried again
+    @Scheduled(cron = "0 5 0 * * *")
+    public void evictPastDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(date -> date.isBefore(today));
+        lastChange.keySet().removeIf(date -> date.isBefore(today));
+        refreshStylists();
+    }
+
+    /**
+     * Re-reads every cached day with one range query, so bookings and
+     * cancellations made on other replicas show up within one interval.
+     * Reservations still waiting for their commit carry over; a day that
+     * changed while it was being read keeps its copy until the next pass.
+     */
+    @Scheduled(
+            initialDelayString = "${availability.refresh-ms:60000}",
+            fixedDelayString = "${availability.refresh-ms:60000}"
+    )
+    public void refreshCachedDays() {
+        LocalDate today = LocalDate.now();
+        days.keySet().removeIf(date -> !isCacheable(date, today));
+        if (days.isEmpty()) {
+            return;
+        }
+
+        long seqBefore = changeSeq.get();
+        Map<LocalDate, DaySchedule> loaded = readRange(
+                Collections.min(days.keySet()), Collections.max(days.keySet()));
+
+        loaded.forEach((date, fresh) -> days.computeIfPresent(date, (d, existing) -> {
+            if (lastChange.getOrDefault(d, 0L) > seqBefore) return existing;
+            fresh.adoptPending(existing);
+            return fresh;
+        }));
+    }
+
+    // ================= LOADING =================
+
+    private DaySchedule day(LocalDate date) {
+        if (!isCacheable(date)) {
+            return load(date);
+        }
+        DaySchedule day = days.get(date);
+        return day != null ? day : loadDay(date);
+    }
+
+    /**
+     * Reads the day outside any map lock (a ConcurrentHashMap bin stays
+     * locked for as long as a compute runs) and then installs it, unless
+     * another thread got there first or a change landed during the read, in
+     * which case it is read again. A day that keeps changing is served from
+     * the last read without caching it.
+     */
+    private DaySchedule loadDay(LocalDate date) {
+        for (int attempt = 1; ; attempt++) {
+            long seqBefore = changeSeq.get();
+            DaySchedule loaded = load(date);
+
+            DaySchedule installed = days.compute(date, (d, existing) -> {
+                if (existing != null) return existing;
+                return lastChange.getOrDefault(d, 0L) > seqBefore ? null : loaded;
+            });
+            if (installed != null || attempt == LOAD_ATTEMPTS) {
+                return installed != null ? installed : loaded;
+            }
+        }
+    }
+
+    static boolean isCacheable(LocalDate date) {
+        return isCacheable(date, LocalDate.now());
+    }
+
+    static boolean isCacheable(LocalDate date, LocalDate today) {
+        return !date.isBefore(today) && date.isBefore(today.plusDays(CACHE_HORIZON_DAYS));
+    }
+
+    /**
+     * Reads every uncached, cacheable day in [from, from + dayCount) with
+     * one query. Days outside the horizon are left to {@link #day}.
+     */
+    private void loadRange(LocalDate from, int dayCount) {
+
+        LocalDate today = LocalDate.now();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (int i = 0; i < dayCount; i++) {
+            LocalDate date = from.plusDays(i);
+            if (isCacheable(date, today) && !days.containsKey(date)) {
+                if (first == null) first = date;
+                last = date;
+            }
+        }
+        if (first == null) {
+            return;
+        }
+
+        long seqBefore = changeSeq.get();
+        Map<LocalDate, DaySchedule> loaded = readRange(first, last);
+
+        // A day that changed while we were reading is left for a fresh load
+        loaded.forEach((date, day) -> days.compute(date, (d, existing) -> {
+            if (existing != null) return existing;
+            return lastChange.getOrDefault(d, 0L) > seqBefore ? null : day;
+        }));
+    }
+
+    // Every day in [first, last], one query
+    private Map<LocalDate, DaySchedule> readRange(LocalDate first, LocalDate last) {
+
+        Map<LocalDate, DaySchedule> loaded = new HashMap<>();
+        for (LocalDate d = first; !d.isAfter(last); d = d.plusDays(1)) {
+            loaded.put(d, new DaySchedule(this::capacityOf));
+        }
+
+        List<Object[]> rows = appointmentRepo.findSlotOccupancy(
+                first.atStartOfDay(),
+                last.plusDays(1).atStartOfDay(),
+                RELEASED_STATUSES);
+
+        for (Object[] row : rows) {
+            LocalDateTime start = (LocalDateTime) row[2];
+            DaySchedule day = loaded.get(start.toLocalDate());
+            if (day != null) {
+                addRow(day, row);
+            }
+        }
+
+        return loaded;
+    }
+
+    private DaySchedule load(LocalDate date) {
+        DaySchedule day = new DaySchedule(this::capacityOf);
+
+        List<Object[]> rows = appointmentRepo.findSlotOccupancy(
+                date.atStartOfDay(),
+                date.plusDays(1).atStartOfDay(),
+                RELEASED_STATUSES);
+
+        for (Object[] row : rows) {
+            addRow(day, row);
+        }
+
+        return day;
+    }
+
+    // Row layout: id, stylist id, start, end, service type, chair
+    private static void addRow(DaySchedule day, Object[] row) {
+        LocalDateTime start = (LocalDateTime) row[2];
+        LocalDateTime end = (LocalDateTime) row[3];
+        day.add((Long) row[1], (Long) row[0], startSlot(start), endSlot(start, end),
+                row[4] == ServiceType.CONTINUOUS, row[5] != null ? (Integer) row[5] : 0);
+    }
+
+    // ================= SLOT MATH =================
+
+    static int startSlot(LocalDateTime start) {
+        return (start.getHour() * 60 + start.getMinute()) / SLOT_MINUTES;
+    }
+
+    static int endSlot(LocalDateTime start, LocalDateTime end) {
+        if (end == null) {
+            end = start.plusMinutes(SLOT_MINUTES);
+        }
+        if (!end.toLocalDate().equals(start.toLocalDate())) {
+            return SLOTS_PER_DAY;
+        }
+        int minutes = end.getHour() * 60 + end.getMinute();
+        int slot = (minutes + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        return Math.max(slot, startSlot(start) + 1);
+    }
+
+    static long bitRange(int fromSlot, int toSlot) {
+        if (toSlot <= fromSlot) {
+            return 0L;
+        }
+        long upper = toSlot >= 64 ? -1L : (1L << toSlot) - 1;
+        return upper & ~((1L << fromSlot) - 1);
+    }
+
+    static String slotLabel(int slot) {
+        return LocalTime.of(0, 0).plusMinutes((long) slot * SLOT_MINUTES).toString();
+    }
+
+    static List<String> toSlotLabels(long mask) {
+        List<String> labels = new ArrayList<>();
+        int first = startSlot(LocalDate.EPOCH.atTime(OPENING_TIME));
+        int last = startSlot(LocalDate.EPOCH.atTime(CLOSING_TIME));
+
+        for (int slot = first; slot < last; slot++) {
+            if ((mask & (1L << slot)) != 0) {
+                labels.add(slotLabel(slot));
+            }
+        }
+        return labels;
+    }
+
+    // ================= INDEX =================
+
+    /**
+     * All stylists' occupancy for one calendar day.
+     */
+    static final class DaySchedule {
+
+        private final ConcurrentHashMap<Long, StylistDay> stylists = new ConcurrentHashMap<>();
+        private final ToIntFunction<Long> capacities;
+
+        DaySchedule(ToIntFunction<Long> capacities) {
+            this.capacities = capacities;
+        }
+
+        long mask(Long stylistId) {
+            StylistDay s = stylists.get(stylistId);
+            return s != null ? s.mask() : 0L;
+        }
+
+        // Buckets a new booking cannot use: full ones, or any occupied one
+        // for a continuous service
+        long blockedMask(Long stylistId, boolean continuous) {
+            StylistDay s = stylists.get(stylistId);
+            if (s == null) return 0L;
+            return continuous ? s.busyMask() : s.mask();
+        }
+
+        int bookedSlots(Long stylistId) {
+            StylistDay s = stylists.get(stylistId);
+            return s != null ? s.bookedSlots() : 0;
+        }
+
+        void add(Long stylistId, Long appointmentId, int fromSlot, int toSlot, boolean continuous, int chair) {
+            stylist(stylistId).add(appointmentId, new Booking(fromSlot, toSlot, continuous, chair));
+        }
+
+        int tryAdd(Long stylistId, Long key, int fromSlot, int toSlot, boolean continuous) {
+            return stylist(stylistId).tryAdd(key, fromSlot, toSlot, continuous);
+        }
+
+        void remove(Long stylistId, Long appointmentId) {
+            StylistDay s = stylists.get(stylistId);
+            if (s != null) {
+                s.remove(appointmentId);
+            }
+        }
+
+        void rekey(Long stylistId, Long oldKey, Long newKey) {
+            StylistDay s = stylists.get(stylistId);
+            if (s != null) {
+                s.rekey(oldKey, newKey);
+            }
+        }
+
+        void refreshCapacities() {
+            stylists.forEach((id, s) -> s.setCapacity(capacities.applyAsInt(id)));
+        }
+
+        // Copies over reservations whose row is not committed yet
+        void adoptPending(DaySchedule previous) {
+            previous.stylists.forEach((id, s) ->
+                    s.pending().forEach((key, booking) -> stylist(id).add(key, booking)));
+        }
+
+        private StylistDay stylist(Long stylistId) {
+            return stylists.computeIfAbsent(stylistId, id -> new StylistDay(capacities.applyAsInt(id)));
+        }
+    }
+
+    record Booking(int fromSlot, int toSlot, boolean continuous, int chair) {
+    }
+
+    /**
+     * One stylist on one day. Bookings are keyed by appointment id so that
+     * replaying the same event is harmless.
+     */
+    static final class StylistDay {
+
+        private final Map<Long, Booking> bookings = new HashMap<>();
+        private final int[] occupancy = new int[SLOTS_PER_DAY];
+        private int capacity;
+
+        // Buckets where occupancy has reached capacity
+        private long fullMask;
+
+        // Buckets with any occupancy at all
+        private long busyMask;
+
+        // Sum of booked bucket lengths, the stylist's load for the day
+        private int bookedSlots;
+
+        StylistDay(int capacity) {
+            this.capacity = Math.max(1, capacity);
+        }
+
+        synchronized long mask() {
+            return fullMask;
+        }
+
+        synchronized long busyMask() {
+            return busyMask;
+        }
+
+        synchronized int bookedSlots() {
+            return bookedSlots;
+        }
+
+        synchronized void setCapacity(int capacity) {
+            this.capacity = Math.max(1, capacity);
+            rebuild();
+        }
+
+        synchronized void add(Long appointmentId, Booking booking) {
+            Booking previous = bookings.put(appointmentId, booking);
+            if (previous == null) {
+                occupy(booking, 1);
+            } else if (!previous.equals(booking)) {
+                rebuild();
+            }
+        }
+
+        /**
+         * @return the chair given to the booking, or -1 if it does not fit
+         */
+        synchronized int tryAdd(Long key, int fromSlot, int toSlot, boolean continuous) {
+            for (int slot = fromSlot; slot < toSlot; slot++) {
+                int used = occupancy[slot];
+                if (continuous ? used > 0 : used >= capacity) {
+                    return -1;
+                }
+            }
+
+            Booking booking = new Booking(fromSlot, toSlot, continuous, freeChair(fromSlot));
+            bookings.put(key, booking);
+            occupy(booking, 1);
+            return booking.chair();
+        }
+
+        // Reservations are keyed negative until their row is committed
+        synchronized Map<Long, Booking> pending() {
+            Map<Long, Booking> pending = new HashMap<>();
+            bookings.forEach((key, booking) -> {
+                if (key < 0) pending.put(key, booking);
+            });
+            return pending;
+        }
+
+        // The after-commit event may already have added the real id
+        synchronized void rekey(Long oldKey, Long newKey) {
+            Booking booking = bookings.remove(oldKey);
+            if (booking != null && bookings.putIfAbsent(newKey, booking) != null) {
+                occupy(booking, -1);
+            }
+        }
+
+        synchronized void remove(Long appointmentId) {
+            Booking booking = bookings.remove(appointmentId);
+            if (booking != null) {
+                occupy(booking, -1);
+            }
+        }
+
+        // Lowest chair not already taken by a booking starting in the same bucket
+        private int freeChair(int fromSlot) {
+            long taken = 0L;
+            for (Booking b : bookings.values()) {
+                if (b.fromSlot() == fromSlot && b.chair() < 64) {
+                    taken |= 1L << b.chair();
+                }
+            }
+            return Long.numberOfTrailingZeros(~taken);
+        }
+
+        private void occupy(Booking booking, int sign) {
+            int weight = booking.continuous() ? capacity : 1;
+            bookedSlots += sign * (booking.toSlot() - booking.fromSlot());
+            for (int slot = booking.fromSlot(); slot < booking.toSlot(); slot++) {
+                occupancy[slot] += sign * weight;
+                if (occupancy[slot] >= capacity) {
+                    fullMask |= 1L << slot;
+                } else {
+                    fullMask &= ~(1L << slot);
+                }
+                if (occupancy[slot] > 0) {
+                    busyMask |= 1L << slot;
+                } else {
+                    busyMask &= ~(1L << slot);
+                }
+            }
+        }
+
+        private void rebuild() {
+            Arrays.fill(occupancy, 0);
+            fullMask = 0L;
+            busyMask = 0L;
+            bookedSlots = 0;
+            for (Booking b : bookings.values()) {
+                occupy(b, 1);
+            }
+        }
+    }
+}
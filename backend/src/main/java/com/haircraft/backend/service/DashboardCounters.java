@@ -0,0 +1,139 @@
+package com.haircraft.backend.service;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.dto.DashboardOverviewResponse;
+import com.haircraft.backend.event.AppointmentBookedEvent;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.UserRepository;
+
+/**
+ * Running totals behind the admin overview.
+ *
+ * Seeded from the database once the application is up, then moved by
+ * committed bookings, status changes and user inserts, so reading them
+ * never touches the database. A background job recounts periodically and
+ * folds any drift (missed events, writes from outside the app) back in.
+ */
+@Service
+public class DashboardCounters {
+
+    private static final Logger log = LoggerFactory.getLogger(DashboardCounters.class);
+
+    private final AppointmentRepository appointmentRepo;
+    private final UserRepository userRepo;
+
+    private final LongAdder users = new LongAdder();
+    private final LongAdder appointments = new LongAdder();
+    private final Map<AppointmentStatus, LongAdder> byStatus = new EnumMap<>(AppointmentStatus.class);
+
+    public DashboardCounters(AppointmentRepository appointmentRepo, UserRepository userRepo) {
+        this.appointmentRepo = appointmentRepo;
+        this.userRepo = userRepo;
+
+        for (AppointmentStatus status : AppointmentStatus.values()) {
+            byStatus.put(status, new LongAdder());
+        }
+    }
+
+    public DashboardOverviewResponse overview() {
+        return new DashboardOverviewResponse(
+                users.sum(),
+                appointments.sum(),
+                count(AppointmentStatus.BOOKED),
+                count(AppointmentStatus.COMPLETED)
+        );
+    }
+
+    public long count(AppointmentStatus status) {
+        return byStatus.get(status).sum();
+    }
+
+    // ================= UPDATES =================
+
+    public void userAdded() {
+        users.increment();
+    }
+
+    public void userRemoved() {
+        users.decrement();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onBooked(AppointmentBookedEvent event) {
+        appointments.increment();
+        byStatus.get(event.appointment().status()).increment();
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+        AppointmentStatus from = event.previousStatus();
+        AppointmentStatus to = event.appointment().status();
+        if (from != to) {
+            byStatus.get(from).decrement();
+            byStatus.get(to).increment();
+        }
+    }
+
+    // ================= RECONCILE =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seed() {
+        reconcile();
+    }
+
+    /**
+     * Recounts from the database and adds the difference to each counter.
+     * Events landing between the count and the adjustment can leave a
+     * small error; the next run corrects it.
+     */
+    @Scheduled(
+            initialDelayString = "${dashboard.counters.reconcile-ms:300000}",
+            fixedDelayString = "${dashboard.counters.reconcile-ms:300000}"
+    )
+    public void reconcile() {
+        try {
+            adjust(users, userRepo.count());
+
+            Map<AppointmentStatus, Long> counted = new EnumMap<>(AppointmentStatus.class);
+            long total = 0;
+
+            List<Object[]> rows = appointmentRepo.countGroupedByStatus();
+            for (Object[] row : rows) {
+                if (row[0] == null) {
+                    continue;
+                }
+                long n = ((Number) row[1]).longValue();
+                counted.put((AppointmentStatus) row[0], n);
+                total += n;
+            }
+
+            adjust(appointments, total);
+            for (AppointmentStatus status : AppointmentStatus.values()) {
+                adjust(byStatus.get(status), counted.getOrDefault(status, 0L));
+            }
+        } catch (Exception e) {
+            log.warn("Dashboard counter reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    private static void adjust(LongAdder adder, long actual) {
+        long drift = actual - adder.sum();
+        if (drift != 0) {
+            adder.add(drift);
+        }
+    }
+}
@@ -0,0 +1,306 @@
+package com.haircraft.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.haircraft.backend.repository.EmailOutboxRepository;
+import com.haircraft.backend.repository.EmailOutboxRepository.OutboxEmail;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Drains email_outbox on a small fixed pool of worker threads.
+ *
+ * Each worker claims a batch of due rows, sends it over one SMTP transport
+ * that stays open while batches keep coming, and records the outcome per
+ * message. Failed messages are
+ * retried with exponential backoff until the attempts run out. Workers
+ * sleep between polls and are woken early when a transaction that queued
+ * mail commits.
+ */
+@Service
+public class EmailOutboxWorker {
+
+    private static final Logger log = LoggerFactory.getLogger(EmailOutboxWorker.class);
+
+    private static final Duration CLAIM_LEASE = Duration.ofMinutes(5);
+    private static final Duration FIRST_RETRY = Duration.ofSeconds(30);
+    private static final Duration MAX_RETRY = Duration.ofHours(1);
+
+    private final EmailOutboxRepository outboxRepo;
+    private final JavaMailSenderImpl mailSender;
+    private final TransactionTemplate tx;
+    private final int workers;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long pollMs;
+
+    private final Object signal = new Object();
+    private boolean signalled;   // guarded by signal
+
+    private volatile boolean running;
+    private ExecutorService pool;
+
+    private final LongAdder totalSent = new LongAdder();
+    private final LongAdder totalFailed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private volatile BatchStats lastBatch;
+
+    public EmailOutboxWorker(
+            EmailOutboxRepository outboxRepo,
+            JavaMailSenderImpl mailSender,
+            PlatformTransactionManager txManager,
+            @Value("${email.outbox.workers:2}") int workers,
+            @Value("${email.outbox.batch-size:20}") int batchSize,
+            @Value("${email.outbox.max-attempts:8}") int maxAttempts,
+            @Value("${email.outbox.poll-ms:2000}") long pollMs
+    ) {
+        this.outboxRepo = outboxRepo;
+        this.mailSender = mailSender;
+        this.tx = new TransactionTemplate(txManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.pollMs = pollMs;
+    }
+
+    // ================= LIFECYCLE =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+
+        AtomicInteger n = new AtomicInteger();
+        pool = Executors.newFixedThreadPool(workers, r -> {
+            Thread t = new Thread(r, "email-outbox-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        for (int i = 0; i < workers; i++) {
+            pool.execute(this::run);
+        }
+    }
+
+    @PreDestroy
+    public synchronized void stop() throws InterruptedException {
+        if (!running) {
+            return;
+        }
+        running = false;
+        pool.shutdownNow();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    // Called after a transaction that queued mail commits
+    public void wake() {
+        synchronized (signal) {
+            signalled = true;
+            signal.notifyAll();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                if (drainAll() == 0) {
+                    synchronized (signal) {
+                        if (!signalled) {
+                            signal.wait(pollMs);
+                        }
+                        signalled = false;
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.warn("Email outbox worker error", e);
+                try {
+                    Thread.sleep(pollMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    // ================= DELIVERY =================
+
+    /**
+     * Claims one batch and delivers it over a fresh connection. Returns how
+     * many rows were claimed.
+     */
+    public int drain() {
+        try (SmtpConnection smtp = new SmtpConnection()) {
+            return drainBatch(smtp);
+        }
+    }
+
+    // Keeps one connection open across back-to-back batches, so a reminder
+    // burst pays for a single SMTP handshake
+    private int drainAll() {
+        int total = 0;
+        try (SmtpConnection smtp = new SmtpConnection()) {
+            int claimed;
+            while (running && (claimed = drainBatch(smtp)) > 0) {
+                total += claimed;
+                if (smtp.connectFailure != null) {
+                    break;
+                }
+            }
+        }
+        return total;
+    }
+
+    private int drainBatch(SmtpConnection smtp) {
+
+        List<OutboxEmail> batch = tx.execute(status ->
+                outboxRepo.claim(batchSize, LocalDateTime.now().plus(CLAIM_LEASE)));
+
+        if (batch == null || batch.isEmpty()) {
+            return 0;
+        }
+
+        long started = System.nanoTime();
+        List<Long> sent = new ArrayList<>(batch.size());
+        int failed = 0;
+
+        for (OutboxEmail e : batch) {
+            try {
+                smtp.send(toMimeMessage(e));
+                sent.add(e.id());
+            } catch (Exception error) {
+                // One bad message never holds up the rest of the batch
+                failed++;
+                if (e.attempts() >= maxAttempts) {
+                    log.warn("Giving up on email {} to {}: {}", e.id(), e.to(), error.getMessage());
+                    outboxRepo.markFailed(e.id(), error.getMessage());
+                } else {
+                    outboxRepo.retryAt(e.id(), LocalDateTime.now().plus(backoff(e.attempts())), error.getMessage());
+                }
+            }
+        }
+
+        if (!sent.isEmpty()) {
+            outboxRepo.markSent(sent);
+        }
+
+        long elapsedMs = Math.max(1, (System.nanoTime() - started) / 1_000_000);
+        totalSent.add(sent.size());
+        totalFailed.add(failed);
+        batches.increment();
+        lastBatch = new BatchStats(batch.size(), sent.size(), failed, elapsedMs);
+
+        if (log.isDebugEnabled()) {
+            log.debug("Email batch: {} sent, {} failed in {} ms ({} msg/s)",
+                    sent.size(), failed, elapsedMs, sent.size() * 1000L / elapsedMs);
+        }
+
+        return batch.size();
+    }
+
+    private MimeMessage toMimeMessage(OutboxEmail e) throws MessagingException {
+        MimeMessage message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, e.htmlBody() != null, "UTF-8");
+        if (e.from() != null) {
+            helper.setFrom(e.from());
+        }
+        helper.setTo(e.to());
+        helper.setSubject(e.subject());
+        if (e.htmlBody() != null) {
+            helper.setText(e.body(), e.htmlBody());
+        } else {
+            helper.setText(e.body());
+        }
+        message.saveChanges();
+        return message;
+    }
+
+    // ================= METRICS =================
+
+    public record BatchStats(int claimed, int sent, int failed, long elapsedMs) {}
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("batches", batches.sum());
+        stats.put("sent", totalSent.sum());
+        stats.put("failed", totalFailed.sum());
+        stats.put("lastBatch", lastBatch);
+        return stats;
+    }
+
+    /**
+     * One SMTP transport reused for every message sent through it. Connects
+     * lazily and reconnects if the server drops the connection between
+     * messages. A failed connect is remembered and fails the rest of the
+     * batch straight away instead of retrying the handshake per message.
+     */
+    private final class SmtpConnection implements AutoCloseable {
+
+        private Transport transport;
+        private MessagingException connectFailure;
+
+        void send(MimeMessage message) throws MessagingException {
+            if (connectFailure != null) {
+                throw connectFailure;
+            }
+            if (transport == null || !transport.isConnected()) {
+                close();
+                try {
+                    transport = mailSender.getSession().getTransport(mailSender.getProtocol());
+                    transport.connect(mailSender.getHost(), mailSender.getPort(),
+                            mailSender.getUsername(), mailSender.getPassword());
+                } catch (MessagingException e) {
+                    connectFailure = e;
+                    throw e;
+                }
+            }
+            transport.sendMessage(message, message.getAllRecipients());
+        }
+
+        @Override
+        public void close() {
+            if (transport != null) {
+                try {
+                    transport.close();
+                } catch (MessagingException ignored) {
+                    // already gone
+                }
+                transport = null;
+            }
+        }
+    }
+
+    // 30s, 1m, 2m, ... capped at an hour
+    private static Duration backoff(int attempts) {
+        Duration delay = FIRST_RETRY.multipliedBy(1L << Math.min(attempts - 1, 20));
+        return delay.compareTo(MAX_RETRY) > 0 ? MAX_RETRY : delay;
+    }
+}
@@ -1,124 +1,162 @@
 package com.haircraft.backend.service;
 
+import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.haircraft.backend.Entity.Appointment;
-
+import com.haircraft.backend.repository.EmailOutboxRepository;
+import com.haircraft.backend.repository.EmailOutboxRepository.NewEmail;
+import com.haircraft.backend.utils.EmailTemplate;
+
+/**
+ * Builds HairCraft's outbound mails and queues them in email_outbox.
+ *
+ * Nothing here talks to the mail server: the row is written in the
+ * caller's transaction and EmailOutboxWorker delivers it after commit.
+ * Bodies come from the templates under resources/email, parsed once when
+ * the service is created; a template with an .html sibling is sent as
+ * text plus HTML.
+ */
 @Service
 public class EmailService {
 
-    private final JavaMailSender mailSender;
+    private static final Logger log = LoggerFactory.getLogger(EmailService.class);
+
+    private static final DateTimeFormatter REMINDER_DATE = DateTimeFormatter.ofPattern("EEEE, dd MMM yyyy");
+    private static final DateTimeFormatter REMINDER_TIME = DateTimeFormatter.ofPattern("hh:mm a");
+    private static final DateTimeFormatter RECEIPT_DATE_TIME = DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a");
+
+    private static final String[] REMINDER_VARS = { "customerName", "stylistName", "date", "time", "serviceName" };
+    private static final String[] RECEIPT_VARS = { "customerName", "serviceName", "appointment", "amount" };
+
+    private final EmailOutboxRepository outboxRepo;
+    private final EmailOutboxWorker outboxWorker;
+
+    private final EmailTemplate reminderText;
+    private final EmailTemplate reminderHtml;
+    private final EmailTemplate receiptText;
+    private final EmailTemplate receiptHtml;
+    private final EmailTemplate resetOtpText;
+    private final EmailTemplate adminReplyText;
 
     // MUST MATCH spring.mail.username
     @Value("${spring.mail.username}")
     private String fromEmail;
 
-    public EmailService(JavaMailSender mailSender) {
-        this.mailSender = mailSender;
+    public EmailService(EmailOutboxRepository outboxRepo, EmailOutboxWorker outboxWorker) {
+        this.outboxRepo = outboxRepo;
+        this.outboxWorker = outboxWorker;
+
+        this.reminderText = EmailTemplate.load("email/appointment-reminder.txt", REMINDER_VARS);
+        this.reminderHtml = EmailTemplate.loadOptional("email/appointment-reminder.html", REMINDER_VARS);
+        this.receiptText = EmailTemplate.load("email/payment-receipt.txt", RECEIPT_VARS);
+        this.receiptHtml = EmailTemplate.loadOptional("email/payment-receipt.html", RECEIPT_VARS);
+        this.resetOtpText = EmailTemplate.load("email/reset-otp.txt", "otp");
+        this.adminReplyText = EmailTemplate.load("email/admin-reply.txt", "message");
     }
 
     // =============================
     // CORE EMAIL METHOD
     // =============================
-    private void sendEmail(String to, String subject, String body) {
+    private void queue(NewEmail mail) {
 
-        System.out.println("📨 SENDING EMAIL TO: " + to);
-        System.out.println("📤 FROM EMAIL: " + fromEmail);
+        log.debug("Queuing email to {}", mail.to());
 
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        message.setFrom(fromEmail);
+        outboxRepo.enqueue(mail);
+        wakeWorkerAfterCommit();
+    }
+
+    // Wake a worker once the rows are visible to it
+    private void wakeWorkerAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    outboxWorker.wake();
+                }
+            });
+        } else {
+            outboxWorker.wake();
+        }
+    }
 
-        mailSender.send(message);
+    private static String renderOptional(EmailTemplate template, String... values) {
+        return template != null ? template.render(values) : null;
     }
 
     // =============================
     // APPOINTMENT REMINDER EMAIL
     // =============================
     public void sendAppointmentReminder(Appointment appt) {
+        queue(reminder(appt));
+    }
 
-        String to = appt.getUser().getEmail();
-        String subject = "Appointment Reminder – HairCraft";
-
-        DateTimeFormatter dateFormatter =
-                DateTimeFormatter.ofPattern("EEEE, dd MMM yyyy");
-
-        DateTimeFormatter timeFormatter =
-                DateTimeFormatter.ofPattern("hh:mm a");
-
-        String customerName = appt.getUser().getName();
-        String stylistName = appt.getStylist() != null
-                ? appt.getStylist().getName()
-                : "Assigned Specialist";
-
-        String date = appt.getAppointmentDate().format(dateFormatter);
-        String time = appt.getAppointmentDate().format(timeFormatter);
-        String serviceName = appt.getService().getName();
-
-        String body = """
-            Dear %s,
-
-            Greetings from HairCraft!
-
-            This is a gentle reminder regarding your upcoming appointment with us.
-            We are pleased to have the opportunity to serve you.
-
-            Appointment Details:
-
-            • Specialist Name : %s
-            • Appointment Date : %s
-            • Appointment Time : %s
-            • Service : %s
-
-            Kindly arrive at least 10 minutes before your scheduled time to ensure a smooth experience.
-            If you are unable to attend, we request you to cancel or reschedule your appointment through the application at your convenience.
-
-            Thank you for choosing HairCraft. We look forward to welcoming you and providing you with the best service experience.
-
-            For any assistance, please feel free to contact our support team.
-
-            Warm regards,
-            HairCraft Appointment Team
-            HairCraft Salon & Services
-            vmjagtap2004@gmail.com
-        """.formatted(customerName, stylistName, date, time, serviceName);
+    /**
+     * Queues reminders for a whole burst with one batched insert. An
+     * appointment whose mail cannot be built is logged and left out; the
+     * returned list holds the ones that were queued.
+     */
+    public List<Appointment> sendAppointmentReminders(List<Appointment> appointments) {
+
+        List<NewEmail> mails = new ArrayList<>(appointments.size());
+        List<Appointment> queued = new ArrayList<>(appointments.size());
+
+        for (Appointment appt : appointments) {
+            try {
+                mails.add(reminder(appt));
+                queued.add(appt);
+            } catch (Exception e) {
+                log.warn("Reminder email skipped for appt {}: {}", appt.getId(), e.getMessage());
+            }
+        }
+
+        if (!mails.isEmpty()) {
+            log.debug("Queuing {} reminder emails", mails.size());
+            outboxRepo.enqueueAll(mails);
+            wakeWorkerAfterCommit();
+        }
+
+        return queued;
+    }
 
-        sendEmail(to, subject, body);
+    private NewEmail reminder(Appointment appt) {
+
+        String[] values = {
+                appt.getUser().getName(),
+                appt.getStylist() != null ? appt.getStylist().getName() : "Assigned Specialist",
+                appt.getAppointmentDate().format(REMINDER_DATE),
+                appt.getAppointmentDate().format(REMINDER_TIME),
+                appt.getService().getName()
+        };
+
+        return new NewEmail(
+                fromEmail,
+                appt.getUser().getEmail(),
+                "Appointment Reminder – HairCraft",
+                reminderText.render(values),
+                renderOptional(reminderHtml, values));
     }
 
     // =============================
     // PASSWORD RESET OTP EMAIL
     // =============================
     public void sendResetOtp(String email, String otp) {
-
-        String subject = "Password Reset OTP – HairCraft";
-
-        String body = """
-            Hello,
-
-            We received a request to reset your HairCraft account password.
-
-            Your One-Time Password (OTP) is: %s
-
-            ⏳ This OTP is valid for the next 10 minutes.
-            For your security, please do not share this OTP with anyone.
-
-            If you did not request a password reset, please ignore this email. Your account will remain secure.
-
-            Thank you for choosing HairCraft.
-
-            Regards,
-            HairCraft Team
-        """.formatted(otp);
-
-        sendEmail(email, subject, body);
+        queue(new NewEmail(
+                fromEmail,
+                email,
+                "Password Reset OTP – HairCraft",
+                resetOtpText.render(otp),
+                null));
     }
 
     // =============================
@@ -126,74 +164,46 @@ public class EmailService {
     // =============================
     public void sendPaymentReceipt(Appointment appt) {
 
-        System.out.println("📧 SENDING PAYMENT RECEIPT EMAIL");
-
-        String to = appt.getUser().getEmail();
-
-        DateTimeFormatter formatter =
-                DateTimeFormatter.ofPattern("dd MMM yyyy, hh:mm a");
-
-        String subject = "Payment Receipt – HairCraft";
-
-        String body = """
-            Dear %s,
-
-            Thank you for your payment. We are happy to inform you that your payment has been successfully completed ✅
-
-            Payment Details
-            -------------------------
-            Service        : %s
-            Appointment    : %s
-            Amount Paid    : ₹%.2f
-            Payment Status : PAID
-
-            Your appointment has been confirmed. We sincerely appreciate your trust in HairCraft and look forward to serving you.
-
-            If you have any questions or require assistance, please feel free to contact us.
-
-            Warm regards,
-            HairCraft Team
-        """.formatted(
-            appt.getUser().getName(),
-            appt.getService().getName(),
-            appt.getAppointmentDate().format(formatter),
-            appt.getAmount()
-        );
+        log.debug("Rendering payment receipt for appt {}", appt.getId());
+
+        String[] values = {
+                appt.getUser().getName(),
+                appt.getService().getName(),
+                appt.getAppointmentDate().format(RECEIPT_DATE_TIME),
+                amount(appt.getAmount())
+        };
+
+        queue(new NewEmail(
+                fromEmail,
+                appt.getUser().getEmail(),
+                "Payment Receipt – HairCraft",
+                receiptText.render(values),
+                renderOptional(receiptHtml, values)));
+    }
 
-        sendEmail(to, subject, body);
+    // Two decimals, without going through a Formatter
+    private static String amount(Double value) {
+        return value != null
+                ? BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP).toPlainString()
+                : "0.00";
     }
 
     // =============================
     // GENERIC EMAIL METHOD (PUBLIC)
     // =============================
     public void sendEmailusera(String to, String subject, String body) {
-        SimpleMailMessage message = new SimpleMailMessage();
-        message.setTo(to);
-        message.setSubject(subject);
-        message.setText(body);
-        message.setFrom("HairCraft <vmjagtap2004@gmail.com>");
-        mailSender.send(message);
+        queue(new NewEmail("HairCraft <vmjagtap2004@gmail.com>", to, subject, body, null));
     }
 
     // =============================
     // ADMIN REPLY EMAIL
     // =============================
     public void sendAdminReply(String to, String subject, String message) {
-
-        SimpleMailMessage mail = new SimpleMailMessage();
-        mail.setTo(to);
-        mail.setSubject(subject);
-        mail.setText("""
-            Hello,
-
-            %s
-
-            —
-            HairCraft Support Team
-        """.formatted(message));
-
-        mail.setFrom("HairCraft Support <vmjagtap2004@gmail.com>");
-
-        mailSender.send(mail);
+        queue(new NewEmail(
+                "HairCraft Support <vmjagtap2004@gmail.com>",
+                to,
+                subject,
+                adminReplyText.render(message),
+                null));
     }
 }
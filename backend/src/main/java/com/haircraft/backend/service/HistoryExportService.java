@@ -0,0 +1,154 @@
+package com.haircraft.backend.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.haircraft.backend.dto.AppointmentHistoryDTO;
+
+/**
+ * Writes appointment history straight from a forward-only result set to
+ * the response, as NDJSON or CSV.
+ *
+ * MySQL only streams rows when the fetch size is Integer.MIN_VALUE;
+ * anything else buffers the whole result in the driver. Rows are flat
+ * column reads, so no entities or lazy proxies are created, and memory
+ * stays at one row plus the writer buffer regardless of the range.
+ */
+@Service
+public class HistoryExportService {
+
+    public enum Format { NDJSON, CSV }
+
+    private static final String EXPORT_SQL = """
+        SELECT ah.appointment_id, s.name, u.name, a.appointment_date,
+               ah.status, a.amount, ah.changed_at
+        FROM appointment_history ah
+        JOIN appointment a ON a.id = ah.appointment_id
+        LEFT JOIN hair_services s ON s.id = a.service_id
+        LEFT JOIN users u ON u.id = a.user_id
+        WHERE ah.changed_at >= ? AND ah.changed_at < ?
+        ORDER BY ah.id
+    """;
+
+    private static final String CSV_HEADER =
+            "appointmentId,serviceName,customerName,appointmentDate,appointmentTime,status,amount,changedAt\n";
+
+    private static final int FLUSH_EVERY = 1000;
+
+    private final JdbcTemplate streamingJdbc;
+    private final ObjectMapper mapper;
+
+    public HistoryExportService(DataSource dataSource, ObjectMapper mapper) {
+        this.streamingJdbc = new JdbcTemplate(dataSource);
+        this.streamingJdbc.setFetchSize(Integer.MIN_VALUE);
+        this.mapper = mapper;
+    }
+
+    @Transactional(readOnly = true)
+    public long export(Format format, LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        JsonGenerator json = null;
+
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+        } else {
+            json = mapper.getFactory().createGenerator(writer);
+            json.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            json.disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+        }
+
+        long count = 0;
+
+        try (Stream<AppointmentHistoryDTO> rows = streamingJdbc.queryForStream(
+                EXPORT_SQL, (rs, i) -> {
+                    Timestamp date = rs.getTimestamp(4);
+                    Timestamp changed = rs.getTimestamp(7);
+                    Double amount = rs.getDouble(6);
+                    if (rs.wasNull()) {
+                        amount = null;
+                    }
+                    return new AppointmentHistoryDTO(
+                            rs.getLong(1),
+                            rs.getString(2) != null ? rs.getString(2) : "N/A",
+                            rs.getString(3) != null ? rs.getString(3) : "N/A",
+                            date != null ? date.toLocalDateTime().toLocalDate().toString() : "N/A",
+                            date != null ? date.toLocalDateTime().toLocalTime().toString() : "N/A",
+                            rs.getString(5) != null ? rs.getString(5) : "N/A",
+                            amount,
+                            changed != null ? changed.toLocalDateTime() : null);
+                },
+                Timestamp.valueOf(from), Timestamp.valueOf(to))) {
+
+            Iterator<AppointmentHistoryDTO> it = rows.iterator();
+            while (it.hasNext()) {
+                AppointmentHistoryDTO row = it.next();
+
+                if (json != null) {
+                    mapper.writeValue(json, row);
+                    json.flush();
+                    writer.write('\n');
+                } else {
+                    writeCsv(writer, row);
+                }
+
+                if (++count % FLUSH_EVERY == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        if (json != null) {
+            json.close();
+        }
+        writer.flush();
+        return count;
+    }
+
+    private static void writeCsv(Writer w, AppointmentHistoryDTO row) throws IOException {
+        w.write(String.valueOf(row.getAppointmentId()));
+        w.write(',');
+        w.write(csv(row.getServiceName()));
+        w.write(',');
+        w.write(csv(row.getCustomerName()));
+        w.write(',');
+        w.write(row.getAppointmentDate());
+        w.write(',');
+        w.write(row.getAppointmentTime());
+        w.write(',');
+        w.write(row.getStatus());
+        w.write(',');
+        w.write(row.getAmount() != null ? row.getAmount().toString() : "");
+        w.write(',');
+        w.write(row.getChangedAt() != null ? row.getChangedAt().toString() : "");
+        w.write('\n');
+    }
+
+    // RFC 4180 quoting; a leading formula character is neutralised for spreadsheets
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        String v = !value.isEmpty() && "=+-@".indexOf(value.charAt(0)) >= 0 ? "'" + value : value;
+        if (v.indexOf(',') >= 0 || v.indexOf('"') >= 0 || v.indexOf('\n') >= 0 || v.indexOf('\r') >= 0) {
+            return '"' + v.replace("\"", "\"\"") + '"';
+        }
+        return v;
+    }
+}
@@ -0,0 +1,312 @@
+package com.haircraft.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.event.AppointmentHistoryRecordedEvent;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.HistoryRollupRepository;
+import com.haircraft.backend.repository.HistoryRollupRepository.Delta;
+import com.haircraft.backend.repository.HistoryRollupRepository.ServiceTotal;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Maintains history_daily_rollup: one row per day, service and history
+ * status with the entry count and realized revenue.
+ *
+ * Committed history rows are folded into an in-memory pending map and
+ * written behind in one batched upsert every few seconds. A completed
+ * appointment that is later cancelled or refunded takes its revenue back
+ * out of the days it was recorded on, matching what the dashboards used
+ * to compute live.
+ *
+ * Deltas still in memory are lost if the instance dies, and replicas
+ * cannot see each other's pending maps, so recent days are periodically
+ * rebuilt from appointment_history to correct any drift.
+ *
+ * A rebuild already counts every history row committed before its
+ * snapshot, so an event for such a row that is delivered after the
+ * rebuild must not be added again. Events for the window are held while
+ * the rebuild runs, and each rebuild leaves a fence (the highest history
+ * id it saw, the reversals it already applied) that judges them and any
+ * stragglers for a while afterwards.
+ */
+@Service
+public class HistoryRollupService {
+
+    private static final int BACKFILL_CHUNK_DAYS = 31;
+
+    // After-commit events trail their commit by far less than this
+    private static final long FENCE_TTL_MILLIS = 10 * 60 * 1000;
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryRollupService.class);
+
+    private record Key(LocalDate day, long serviceId, AppointmentStatus status) {}
+
+    // One event's contribution. historyId is set for a history row, and
+    // appointmentId for a revenue reversal.
+    private record Change(Key key, long entries, double revenue, long historyId, long appointmentId) {}
+
+    private record Window(LocalDate from, LocalDate to) {
+        boolean covers(LocalDate day) {
+            return !day.isBefore(from) && day.isBefore(to);
+        }
+    }
+
+    private record Fence(Window window, long maxHistoryId, Set<Long> reversed, long createdAt) {
+        boolean counted(Change c) {
+            if (!window.covers(c.key().day())) return false;
+            return c.historyId() > 0 ? c.historyId() <= maxHistoryId : reversed.contains(c.appointmentId());
+        }
+    }
+
+    private final HistoryRollupRepository rollupRepo;
+    private final TransactionTemplate tx;
+
+    // Guarded by this
+    private Map<Key, double[]> pending = new HashMap<>();
+
+    // Guarded by this: the window being rebuilt and the events held for it
+    private Window rebuilding;
+    private List<Change> held;
+
+    // Guarded by this
+    private final List<Fence> fences = new ArrayList<>();
+
+    // Held across a flush's upsert and a window rebuild, so a rebuild never
+    // runs while a drained batch is in flight and gets it added on top
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    private final int reconcileDays;
+
+    public HistoryRollupService(
+            HistoryRollupRepository rollupRepo,
+            PlatformTransactionManager txManager,
+            @Value("${history.rollup.reconcile-days:3}") int reconcileDays
+    ) {
+        this.rollupRepo = rollupRepo;
+        this.tx = new TransactionTemplate(txManager);
+        // One snapshot for every read of a rebuild, so its fence is exact
+        this.tx.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.reconcileDays = reconcileDays;
+    }
+
+    // ================= READ =================
+
+    public List<ServiceTotal> totalsByService(AppointmentStatus status, LocalDate from, LocalDate to) {
+        return rollupRepo.totalsByService(status, from, to);
+    }
+
+    // ================= WRITE-BEHIND =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHistoryRecorded(AppointmentHistoryRecordedEvent event) {
+
+        double revenue = event.status() == AppointmentStatus.COMPLETED && event.amount() != null
+                ? event.amount()
+                : 0;
+
+        add(new Change(new Key(event.changedAt().toLocalDate(), serviceId(event.serviceId()), event.status()),
+                1, revenue, event.historyId() != null ? event.historyId() : 0L, 0L));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChanged(AppointmentStatusChangedEvent event) {
+
+        if (event.previousStatus() != AppointmentStatus.COMPLETED
+                || event.appointment().status() == AppointmentStatus.COMPLETED
+                || event.appointment().amount() == null) {
+            return;
+        }
+
+        try {
+            for (LocalDate day : rollupRepo.completedDays(event.appointment().id())) {
+                add(new Change(new Key(day, serviceId(event.appointment().serviceId()), AppointmentStatus.COMPLETED),
+                        0, -event.appointment().amount(), 0L, event.appointment().id()));
+            }
+        } catch (Exception e) {
+            log.warn("Rollup reversal failed for appointment {}: {}", event.appointment().id(), e.getMessage());
+        }
+    }
+
+    private synchronized void add(Change change) {
+        if (rebuilding != null && rebuilding.covers(change.key().day())) {
+            held.add(change);
+            return;
+        }
+        for (Fence fence : fences) {
+            if (fence.counted(change)) {
+                return;
+            }
+        }
+        double[] totals = pending.computeIfAbsent(change.key(), k -> new double[2]);
+        totals[0] += change.entries();
+        totals[1] += change.revenue();
+    }
+
+    @Scheduled(fixedDelayString = "${history.rollup.flush-ms:5000}")
+    @PreDestroy
+    public void flush() {
+
+        writeLock.lock();
+        try {
+            Map<Key, double[]> batch;
+            synchronized (this) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new HashMap<>();
+            }
+
+            List<Delta> deltas = new ArrayList<>(batch.size());
+            batch.forEach((k, v) -> deltas.add(
+                    new Delta(k.day(), k.serviceId(), k.status(), (long) v[0], v[1])));
+
+            try {
+                rollupRepo.addAll(deltas);
+            } catch (Exception e) {
+                // Still under writeLock, so no rebuild has counted these yet
+                log.warn("Rollup flush failed, retrying next run: {}", e.getMessage());
+                synchronized (this) {
+                    batch.forEach((k, v) -> {
+                        double[] totals = pending.computeIfAbsent(k, x -> new double[2]);
+                        totals[0] += v[0];
+                        totals[1] += v[1];
+                    });
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // ================= BACKFILL =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void backfillIfEmpty() {
+        try {
+            if (rollupRepo.isEmpty()) {
+                backfill();
+            }
+        } catch (Exception e) {
+            log.warn("Rollup backfill failed", e);
+        }
+    }
+
+    /**
+     * Rebuilds every rollup row from appointment_history, a month-sized
+     * window per transaction so no single statement scans the whole table.
+     */
+    public int backfill() {
+
+        LocalDateTime first = rollupRepo.firstHistoryAt();
+        if (first == null) {
+            return 0;
+        }
+
+        LocalDate end = LocalDate.now().plusDays(1);
+        int rows = 0;
+
+        for (LocalDate from = first.toLocalDate(); from.isBefore(end); from = from.plusDays(BACKFILL_CHUNK_DAYS)) {
+            LocalDate to = from.plusDays(BACKFILL_CHUNK_DAYS).isBefore(end)
+                    ? from.plusDays(BACKFILL_CHUNK_DAYS)
+                    : end;
+            rows += rebuild(from, to);
+        }
+
+        log.debug("History rollup rebuilt: {} rows", rows);
+        return rows;
+    }
+
+    // Recent days from committed history: repairs deltas lost in a crash or
+    // pending on another replica when a rebuild ran
+    @Scheduled(
+            initialDelayString = "${history.rollup.reconcile-ms:3600000}",
+            fixedDelayString = "${history.rollup.reconcile-ms:3600000}"
+    )
+    public void reconcileRecentDays() {
+        try {
+            LocalDate today = LocalDate.now();
+            rebuild(today.minusDays(reconcileDays - 1L), today.plusDays(1));
+        } catch (Exception e) {
+            log.warn("Rollup reconcile failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Replaces [from, to) from appointment_history. Pending deltas for the
+     * window are dropped first, since the rebuild counts their committed
+     * rows; writeLock keeps a flush from landing in between. Events arriving
+     * meanwhile are held and then replayed through the rebuild's fence. If
+     * the rebuild fails, the dropped deltas are put back.
+     */
+    private int rebuild(LocalDate from, LocalDate to) {
+        Window window = new Window(from, to);
+
+        writeLock.lock();
+        try {
+            Map<Key, double[]> dropped = new HashMap<>();
+            synchronized (this) {
+                pending.entrySet().removeIf(e -> {
+                    if (!window.covers(e.getKey().day())) return false;
+                    dropped.put(e.getKey(), e.getValue());
+                    return true;
+                });
+                rebuilding = window;
+                held = new ArrayList<>();
+            }
+
+            HistoryRollupRepository.Rebuilt rebuilt = null;
+            try {
+                rebuilt = tx.execute(status -> rollupRepo.rebuild(from, to));
+                return rebuilt != null ? rebuilt.rows() : 0;
+            } finally {
+                synchronized (this) {
+                    List<Change> replay = held;
+                    rebuilding = null;
+                    held = null;
+
+                    long now = System.currentTimeMillis();
+                    fences.removeIf(f -> now - f.createdAt() > FENCE_TTL_MILLIS);
+                    if (rebuilt != null) {
+                        fences.add(new Fence(window, rebuilt.maxHistoryId(), rebuilt.reversedAppointments(), now));
+                    } else {
+                        dropped.forEach((k, v) -> {
+                            double[] totals = pending.computeIfAbsent(k, x -> new double[2]);
+                            totals[0] += v[0];
+                            totals[1] += v[1];
+                        });
+                    }
+                    replay.forEach(this::add);
+                }
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    private static long serviceId(Long id) {
+        return id != null ? id : 0L;
+    }
+}
@@ -0,0 +1,289 @@
+package com.haircraft.backend.service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceItem;
+import com.haircraft.backend.Entity.User;
+import com.haircraft.backend.dto.LeaderboardEntry;
+import com.haircraft.backend.event.AppointmentHistoryRecordedEvent;
+import com.haircraft.backend.repository.AppointmentHistoryRepository;
+import com.haircraft.backend.repository.ServiceRepository;
+import com.haircraft.backend.repository.UserRepository;
+
+/**
+ * Top services and customers by COMPLETED history entries for today, this
+ * month and this year.
+ *
+ * Each window keeps exact counts plus the current top {@value #TOP_K}
+ * in order. Counts only grow, so a committed history row moves at most one
+ * entry up the list and reading the leader is a lookup. Windows are reset
+ * when the day, month or year rolls over. Everything is seeded from two
+ * grouped queries at startup and again every night, which also folds in
+ * rows written outside the app.
+ */
+@Service
+public class LeaderboardService {
+
+    public static final int TOP_K = 10;
+
+    private static final Logger log = LoggerFactory.getLogger(LeaderboardService.class);
+
+    public enum Window { TODAY, MONTH, YEAR }
+
+    private final AppointmentHistoryRepository historyRepo;
+    private final ServiceRepository serviceRepo;
+    private final UserRepository userRepo;
+
+    // All guarded by this
+    private final Map<Window, Board> services = new EnumMap<>(Window.class);
+    private final Map<Window, Board> customers = new EnumMap<>(Window.class);
+    private final Map<Long, String> serviceNames = new HashMap<>();
+    private final Map<Long, String> customerNames = new HashMap<>();
+    private LocalDate day = LocalDate.now();
+
+    public LeaderboardService(
+            AppointmentHistoryRepository historyRepo,
+            ServiceRepository serviceRepo,
+            UserRepository userRepo
+    ) {
+        this.historyRepo = historyRepo;
+        this.serviceRepo = serviceRepo;
+        this.userRepo = userRepo;
+
+        for (Window w : Window.values()) {
+            services.put(w, new Board());
+            customers.put(w, new Board());
+        }
+    }
+
+    // ================= READ =================
+
+    public synchronized List<LeaderboardEntry> topServices(Window window, int limit) {
+        roll(LocalDate.now());
+        return services.get(window).entries(limit, serviceNames);
+    }
+
+    public synchronized List<LeaderboardEntry> topCustomers(Window window, int limit) {
+        roll(LocalDate.now());
+        return customers.get(window).entries(limit, customerNames);
+    }
+
+    public String topServiceName(Window window) {
+        List<LeaderboardEntry> top = topServices(window, 1);
+        return top.isEmpty() ? "—" : top.get(0).name();
+    }
+
+    public String topCustomerName(Window window) {
+        List<LeaderboardEntry> top = topCustomers(window, 1);
+        return top.isEmpty() ? "—" : top.get(0).name();
+    }
+
+    // ================= UPDATES =================
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onHistoryRecorded(AppointmentHistoryRecordedEvent event) {
+
+        if (event.status() != AppointmentStatus.COMPLETED) {
+            return;
+        }
+
+        Long serviceId = event.serviceId();
+        Long userId = event.userId();
+
+        // Name lookups stay outside the lock; each id is only looked up once
+        String serviceName = serviceId != null && !hasServiceName(serviceId)
+                ? serviceRepo.findById(serviceId).map(ServiceItem::getName).orElse("—")
+                : null;
+        String customerName = userId != null && !hasCustomerName(userId)
+                ? userRepo.findById(userId).map(User::getName).orElse("—")
+                : null;
+
+        synchronized (this) {
+            roll(LocalDate.now());
+
+            if (serviceName != null) {
+                serviceNames.putIfAbsent(serviceId, serviceName);
+            }
+            if (customerName != null) {
+                customerNames.putIfAbsent(userId, customerName);
+            }
+
+            LocalDate at = event.changedAt().toLocalDate();
+            for (Window w : Window.values()) {
+                if (at.isBefore(windowStart(w, day))) {
+                    continue;
+                }
+                if (serviceId != null) {
+                    services.get(w).add(serviceId, 1);
+                }
+                if (userId != null) {
+                    customers.get(w).add(userId, 1);
+                }
+            }
+        }
+    }
+
+    private synchronized boolean hasServiceName(Long id) {
+        return serviceNames.containsKey(id);
+    }
+
+    private synchronized boolean hasCustomerName(Long id) {
+        return customerNames.containsKey(id);
+    }
+
+    // Empties every window whose period ended since the last call
+    private void roll(LocalDate today) {
+        if (today.equals(day)) {
+            return;
+        }
+        if (today.getYear() != day.getYear()) {
+            services.put(Window.YEAR, new Board());
+            customers.put(Window.YEAR, new Board());
+        }
+        if (today.getYear() != day.getYear() || today.getMonth() != day.getMonth()) {
+            services.put(Window.MONTH, new Board());
+            customers.put(Window.MONTH, new Board());
+        }
+        services.put(Window.TODAY, new Board());
+        customers.put(Window.TODAY, new Board());
+        day = today;
+    }
+
+    private static LocalDate windowStart(Window window, LocalDate today) {
+        return switch (window) {
+            case TODAY -> today;
+            case MONTH -> today.withDayOfMonth(1);
+            case YEAR -> today.withDayOfYear(1);
+        };
+    }
+
+    // ================= SEED =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void seedOnStartup() {
+        seed();
+    }
+
+    /**
+     * Recounts every window from appointment_history and swaps the result
+     * in. The queries run outside the lock, so an entry committed while
+     * they run can be missing until the next seed.
+     */
+    @Scheduled(cron = "${leaderboard.reseed-cron:0 5 0 * * *}")
+    public void seed() {
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDateTime yearStart = windowStart(Window.YEAR, today).atStartOfDay();
+            LocalDateTime monthStart = windowStart(Window.MONTH, today).atStartOfDay();
+            LocalDateTime dayStart = today.atStartOfDay();
+
+            Map<Window, Board> freshServices = new EnumMap<>(Window.class);
+            Map<Window, Board> freshCustomers = new EnumMap<>(Window.class);
+            Map<Long, String> freshServiceNames = new HashMap<>();
+            Map<Long, String> freshCustomerNames = new HashMap<>();
+
+            fill(historyRepo.countCompletedByService(yearStart, monthStart, dayStart),
+                    freshServices, freshServiceNames);
+            fill(historyRepo.countCompletedByCustomer(yearStart, monthStart, dayStart),
+                    freshCustomers, freshCustomerNames);
+
+            synchronized (this) {
+                services.putAll(freshServices);
+                customers.putAll(freshCustomers);
+                serviceNames.putAll(freshServiceNames);
+                customerNames.putAll(freshCustomerNames);
+                day = today;
+            }
+        } catch (Exception e) {
+            log.warn("Leaderboard seed failed", e);
+        }
+    }
+
+    // Rows: id, name, year count, month count, today count
+    private static void fill(List<Object[]> rows, Map<Window, Board> boards, Map<Long, String> names) {
+
+        for (Window w : Window.values()) {
+            boards.put(w, new Board());
+        }
+
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            names.put(id, row[1] != null ? (String) row[1] : "—");
+            boards.get(Window.YEAR).add(id, ((Number) row[2]).longValue());
+            boards.get(Window.MONTH).add(id, ((Number) row[3]).longValue());
+            boards.get(Window.TODAY).add(id, ((Number) row[4]).longValue());
+        }
+    }
+
+    // ================= BOARD =================
+
+    private static final class Board {
+
+        private final Map<Long, long[]> counts = new HashMap<>();
+        private final long[] top = new long[TOP_K];   // ids, highest count first
+        private int topSize;
+
+        void add(long id, long n) {
+            if (n <= 0) {
+                return;
+            }
+
+            long[] count = counts.computeIfAbsent(id, k -> new long[1]);
+            count[0] += n;
+
+            int pos = indexOf(id);
+            if (pos < 0) {
+                if (topSize < TOP_K) {
+                    pos = topSize++;
+                } else if (count[0] > count(top[TOP_K - 1])) {
+                    pos = TOP_K - 1;
+                } else {
+                    return;
+                }
+                top[pos] = id;
+            }
+
+            while (pos > 0 && count(top[pos - 1]) < count[0]) {
+                top[pos] = top[pos - 1];
+                top[--pos] = id;
+            }
+        }
+
+        List<LeaderboardEntry> entries(int limit, Map<Long, String> names) {
+            int n = Math.min(limit, topSize);
+            List<LeaderboardEntry> result = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                result.add(new LeaderboardEntry(top[i], names.getOrDefault(top[i], "—"), count(top[i])));
+            }
+            return result;
+        }
+
+        private int indexOf(long id) {
+            for (int i = 0; i < topSize; i++) {
+                if (top[i] == id) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private long count(long id) {
+            return counts.get(id)[0];
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.haircraft.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.haircraft.backend.Entity.Appointment;
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceType;
+import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.StylistScheduleDTO;
+import com.haircraft.backend.dto.StylistScheduleDTO.AvailabilityStatus;
+import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.StylistRepository;
+
+/**
+ * Admin view of every stylist's day.
+ *
+ * All stylists' appointments for the selected day and the coming week are
+ * read in one join-fetch query and grouped by stylist in memory; counts,
+ * the day's schedule and the availability status come from the same pass.
+ */
+@Service
+public class StylistScheduleService {
+
+    private static final long OPEN_MINUTES = Duration.between(
+            AvailabilityEngine.OPENING_TIME, AvailabilityEngine.CLOSING_TIME).toMinutes();
+
+    private final AppointmentRepository appointmentRepo;
+    private final StylistRepository stylistRepo;
+    private final AppointmentService appointmentService;
+
+    public StylistScheduleService(
+            AppointmentRepository appointmentRepo,
+            StylistRepository stylistRepo,
+            AppointmentService appointmentService
+    ) {
+        this.appointmentRepo = appointmentRepo;
+        this.stylistRepo = stylistRepo;
+        this.appointmentService = appointmentService;
+    }
+
+    @Transactional(readOnly = true)
+    public List<StylistScheduleDTO> getSchedules(LocalDate date) {
+
+        LocalDateTime dayStart = date.atStartOfDay();
+        LocalDateTime dayEnd = date.plusDays(1).atStartOfDay();
+        LocalDateTime opening = date.atTime(AvailabilityEngine.OPENING_TIME);
+        LocalDateTime closing = date.atTime(AvailabilityEngine.CLOSING_TIME);
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime weekEnd = now.plusDays(7);
+
+        Map<Long, Accumulator> byStylist = new HashMap<>();
+
+        for (Appointment a : appointmentRepo.findStylistSchedules(dayStart, dayEnd, now, weekEnd)) {
+
+            Accumulator acc = byStylist.computeIfAbsent(a.getStylist().getId(), id -> new Accumulator());
+            LocalDateTime at = a.getAppointmentDate();
+            AppointmentStatus status = a.getStatus();
+
+            if (!at.isBefore(dayStart) && at.isBefore(dayEnd)
+                    && status != AppointmentStatus.CANCELLED
+                    && status != AppointmentStatus.REJECTED) {
+
+                acc.today.add(a);
+
+                if (!AvailabilityEngine.RELEASED_STATUSES.contains(status)) {
+                    acc.bookedMinutes += overlapMinutes(a, opening, closing) * chairsTaken(a);
+                }
+            }
+
+            if (!at.isBefore(now) && at.isBefore(weekEnd) && status != AppointmentStatus.CANCELLED) {
+                acc.upcoming++;
+            }
+        }
+
+        List<Stylist> stylists = stylistRepo.findAll();
+        List<StylistScheduleDTO> result = new ArrayList<>(stylists.size());
+
+        for (Stylist stylist : stylists) {
+
+            Accumulator acc = byStylist.getOrDefault(stylist.getId(), Accumulator.EMPTY);
+
+            StylistScheduleDTO dto = new StylistScheduleDTO(
+                    stylist.getId(), stylist.getName(), stylist.getSpecialization(),
+                    stylist.isActive(), stylist.getCapacity()
+            );
+
+            dto.setTodayAppointments(acc.today.size());
+            dto.setUpcomingAppointments(acc.upcoming);
+            dto.setTodaysSchedule(acc.today.stream().map(appointmentService::convertToDTO).toList());
+
+            long chairMinutes = stylist.getCapacity() * OPEN_MINUTES;
+            int utilization = chairMinutes > 0 ? (int) (acc.bookedMinutes * 100 / chairMinutes) : 0;
+
+            dto.setUtilizationPercentage(utilization);
+            dto.setStatus(availability(stylist.isActive(), utilization));
+
+            result.add(dto);
+        }
+
+        return result;
+    }
+
+    private static AvailabilityStatus availability(boolean active, int utilization) {
+        if (!active) {
+            return AvailabilityStatus.INACTIVE;
+        }
+        if (utilization >= 100) {
+            return AvailabilityStatus.FULLY_BOOKED;
+        }
+        if (utilization >= 70) {
+            return AvailabilityStatus.BUSY;
+        }
+        return AvailabilityStatus.AVAILABLE;
+    }
+
+    // Minutes of the appointment that fall inside opening hours
+    private static long overlapMinutes(Appointment a, LocalDateTime opening, LocalDateTime closing) {
+        LocalDateTime start = a.getStartTime().isAfter(opening) ? a.getStartTime() : opening;
+        LocalDateTime end = a.getEndTime().isBefore(closing) ? a.getEndTime() : closing;
+        return end.isAfter(start) ? Duration.between(start, end).toMinutes() : 0;
+    }
+
+    // A continuous service takes all of the stylist's chairs, as in the slot engine
+    private static int chairsTaken(Appointment a) {
+        if (a.getService() != null && a.getService().getType() == ServiceType.CONTINUOUS) {
+            return Math.max(1, a.getStylist().getCapacity());
+        }
+        return 1;
+    }
+
+    private static final class Accumulator {
+
+        static final Accumulator EMPTY = new Accumulator();
+
+        final List<Appointment> today = new ArrayList<>();
+        int upcoming;
+        long bookedMinutes;
+    }
+}
@@ -0,0 +1,124 @@
+package com.haircraft.backend.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.StylistUtilizationResponse;
+import com.haircraft.backend.dto.StylistUtilizationResponse.Entry;
+import com.haircraft.backend.repository.StylistRepository;
+import com.haircraft.backend.repository.StylistUtilizationRepository;
+import com.haircraft.backend.repository.StylistUtilizationRepository.StylistDayMinutes;
+
+/**
+ * Chair utilization per stylist over a date range: occupied minutes inside
+ * opening hours divided by capacity x opening minutes for every day in the
+ * range. Uses the same definition as the per-day schedule view.
+ *
+ * One grouped aggregate gives the minutes for every stylist and day; the
+ * stylist list is the only other read.
+ */
+@Service
+public class StylistUtilizationService {
+
+    static final int MAX_RANGE_DAYS = 366;
+
+    private static final long OPEN_MINUTES = Duration.between(
+            AvailabilityEngine.OPENING_TIME, AvailabilityEngine.CLOSING_TIME).toMinutes();
+
+    private final StylistUtilizationRepository utilizationRepo;
+    private final StylistRepository stylistRepo;
+
+    public StylistUtilizationService(
+            StylistUtilizationRepository utilizationRepo,
+            StylistRepository stylistRepo
+    ) {
+        this.utilizationRepo = utilizationRepo;
+        this.stylistRepo = stylistRepo;
+    }
+
+    public StylistUtilizationResponse utilization(LocalDate from, LocalDate to) {
+
+        if (to.isBefore(from)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "to must not be before from");
+        }
+
+        long days = ChronoUnit.DAYS.between(from, to) + 1;
+        if (days > MAX_RANGE_DAYS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Range must be at most " + MAX_RANGE_DAYS + " days");
+        }
+
+        List<Stylist> stylists = stylistRepo.findAll();
+
+        Map<Long, Integer> capacityById = new HashMap<>();
+        for (Stylist s : stylists) {
+            capacityById.put(s.getId(), s.getCapacity());
+        }
+
+        Map<Long, long[]> byStylist = new HashMap<>();   // {booked minutes, fully booked days}
+
+        for (StylistDayMinutes row : utilizationRepo.occupiedMinutes(
+                from, to,
+                AvailabilityEngine.OPENING_TIME, AvailabilityEngine.CLOSING_TIME,
+                AvailabilityEngine.RELEASED_STATUSES)) {
+
+            long[] totals = byStylist.computeIfAbsent(row.stylistId(), id -> new long[2]);
+            totals[0] += row.minutes();
+
+            int capacity = capacityById.getOrDefault(row.stylistId(), 0);
+            if (capacity > 0 && row.minutes() >= capacity * OPEN_MINUTES) {
+                totals[1]++;
+            }
+        }
+
+        List<Entry> entries = new ArrayList<>();
+        long active = 0;
+        long fullyBooked = 0;
+        long bookedTotal = 0;
+        long capacityTotal = 0;
+
+        for (Stylist s : stylists) {
+            if (!s.isActive()) {
+                continue;
+            }
+            active++;
+
+            long[] totals = byStylist.getOrDefault(s.getId(), new long[2]);
+            long capacityMinutes = s.getCapacity() * OPEN_MINUTES * days;
+            int percentage = percent(totals[0], capacityMinutes);
+
+            if (percentage >= 100) {
+                fullyBooked++;
+            }
+            bookedTotal += totals[0];
+            capacityTotal += capacityMinutes;
+
+            entries.add(new Entry(s.getId(), s.getName(), totals[0], capacityMinutes, percentage, (int) totals[1]));
+        }
+
+        return new StylistUtilizationResponse(
+                from.toString(),
+                to.toString(),
+                stylists.size(),
+                active,
+                fullyBooked,
+                active - fullyBooked,
+                percent(bookedTotal, capacityTotal),
+                entries
+        );
+    }
+
+    private static int percent(long booked, long capacity) {
+        return capacity > 0 ? (int) (booked * 100 / capacity) : 0;
+    }
+}
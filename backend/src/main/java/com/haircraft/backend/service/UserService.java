@@ -12,6 +12,7 @@ import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.haircraft.backend.Entity.User;
 import com.haircraft.backend.dto.LoginRequest;
@@ -104,6 +105,8 @@ public class UserService implements UserDetailsService {
     }
 
     // ================= SEND RESET OTP =================
+    // OTP and its email row commit together
+    @Transactional
     public void sendResetOtp(String email) {
 
         User user = userRepo.findByEmail(email)
@@ -0,0 +1,138 @@
+package com.haircraft.backend.utils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.core.io.ClassPathResource;
+
+/**
+ * An email body with {{name}} placeholders, split once into literal
+ * segments and variable slots.
+ *
+ * Rendering appends segments and values into a per-thread StringBuilder
+ * that is reused between calls, so a bulk send allocates little more than
+ * the resulting strings. HTML templates escape every value they insert.
+ * Immutable and safe to share between threads.
+ */
+public final class EmailTemplate {
+
+    // Buffers that grew past this are dropped instead of kept per thread
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<StringBuilder> BUFFER =
+            ThreadLocal.withInitial(() -> new StringBuilder(4096));
+
+    private final String[] literals;   // one more than slots
+    private final int[] slots;         // index into render()'s values
+    private final boolean html;
+
+    private EmailTemplate(String[] literals, int[] slots, boolean html) {
+        this.literals = literals;
+        this.slots = slots;
+        this.html = html;
+    }
+
+    /**
+     * Parses {@code source}. Each placeholder must be one of
+     * {@code variables}, whose order is the order render() takes values in.
+     */
+    public static EmailTemplate compile(String source, boolean html, String... variables) {
+
+        List<String> names = Arrays.asList(variables);
+        List<String> literals = new ArrayList<>();
+        List<Integer> slots = new ArrayList<>();
+
+        int pos = 0;
+        while (true) {
+            int open = source.indexOf("{{", pos);
+            if (open < 0) {
+                break;
+            }
+            int close = source.indexOf("}}", open + 2);
+            if (close < 0) {
+                throw new IllegalArgumentException("Unclosed placeholder at " + open);
+            }
+
+            String name = source.substring(open + 2, close).trim();
+            int slot = names.indexOf(name);
+            if (slot < 0) {
+                throw new IllegalArgumentException("Unknown placeholder {{" + name + "}}");
+            }
+
+            literals.add(source.substring(pos, open));
+            slots.add(slot);
+            pos = close + 2;
+        }
+        literals.add(source.substring(pos));
+
+        return new EmailTemplate(
+                literals.toArray(String[]::new),
+                slots.stream().mapToInt(Integer::intValue).toArray(),
+                html);
+    }
+
+    // Loads a UTF-8 template from the classpath; an .html name marks an HTML template
+    public static EmailTemplate load(String resource, String... variables) {
+        try (InputStream in = new ClassPathResource(resource).getInputStream()) {
+            String source = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            return compile(source, resource.endsWith(".html"), variables);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read email template " + resource, e);
+        }
+    }
+
+    // Like load(), but null when the resource does not exist
+    public static EmailTemplate loadOptional(String resource, String... variables) {
+        return new ClassPathResource(resource).exists() ? load(resource, variables) : null;
+    }
+
+    public boolean isHtml() {
+        return html;
+    }
+
+    public String render(String... values) {
+
+        StringBuilder sb = BUFFER.get();
+        sb.setLength(0);
+
+        for (int i = 0; i < slots.length; i++) {
+            sb.append(literals[i]);
+            String value = values[slots[i]];
+            if (html) {
+                appendEscaped(sb, value);
+            } else {
+                sb.append(value);
+            }
+        }
+        sb.append(literals[slots.length]);
+
+        String result = sb.toString();
+        if (sb.capacity() > MAX_RETAINED_BUFFER) {
+            BUFFER.remove();
+        }
+        return result;
+    }
+
+    private static void appendEscaped(StringBuilder sb, String value) {
+        if (value == null) {
+            sb.append("null");
+            return;
+        }
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '<' -> sb.append("&lt;");
+                case '>' -> sb.append("&gt;");
+                case '&' -> sb.append("&amp;");
+                case '"' -> sb.append("&quot;");
+                case '\'' -> sb.append("&#39;");
+                default -> sb.append(c);
+            }
+        }
+    }
+}
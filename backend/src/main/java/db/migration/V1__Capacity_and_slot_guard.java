@@ -0,0 +1,142 @@
+package db.migration;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+/**
+ * Capacity columns and the stylist slot guard.
+ *
+ * These used to be applied by the startup schema check, so some databases
+ * already have them; every step checks INFORMATION_SCHEMA first (MySQL has
+ * no ADD COLUMN IF NOT EXISTS).
+ *
+ * Before the guard existed nothing stopped two live rows sharing a stylist
+ * and start time, and every row starts on chair 0, so such pairs are moved
+ * to distinct chairs first and reported; otherwise the unique key could not
+ * be built and the application would not start.
+ */
+public class V1__Capacity_and_slot_guard extends BaseJavaMigration {
+
+    private static final Logger log = LoggerFactory.getLogger(V1__Capacity_and_slot_guard.class);
+
+    private record SlotRow(long id, long stylistId, Timestamp slot, int chair) {
+    }
+
+    @Override
+    public void migrate(Context context) {
+
+        JdbcTemplate jdbc = new JdbcTemplate(
+                new SingleConnectionDataSource(context.getConnection(), true));
+
+        if (!columnExists(jdbc, "hair_services", "service_type")) {
+            jdbc.execute("ALTER TABLE hair_services "
+                    + "ADD COLUMN service_type VARCHAR(20) NOT NULL DEFAULT 'FIXED'");
+        }
+
+        if (!columnExists(jdbc, "appointment", "chair")) {
+            jdbc.execute("ALTER TABLE appointment "
+                    + "ADD COLUMN chair INT NOT NULL DEFAULT 0");
+        }
+
+        // booked_slot is start_time while the appointment holds its slot and
+        // NULL once released, so cancelled rows never collide
+        if (!columnExists(jdbc, "appointment", "booked_slot")) {
+            jdbc.execute("ALTER TABLE appointment "
+                    + "ADD COLUMN booked_slot DATETIME(6) GENERATED ALWAYS AS ("
+                    + "CASE WHEN status IN ('CANCELLED','CANCELLED_BY_ADMIN','REJECTED','REFUNDED') "
+                    + "THEN NULL ELSE start_time END) STORED");
+        }
+
+        List<String> guards = jdbc.queryForList(
+                "SELECT DISTINCT INDEX_NAME FROM INFORMATION_SCHEMA.STATISTICS "
+                + "WHERE TABLE_SCHEMA = DATABASE() "
+                + "AND TABLE_NAME = 'appointment' "
+                + "AND INDEX_NAME LIKE 'uk_appointment_stylist_slot%'",
+                String.class);
+
+        if (!guards.contains("uk_appointment_stylist_slot_chair")) {
+            if (guards.contains("uk_appointment_stylist_slot")) {
+                jdbc.execute("ALTER TABLE appointment DROP INDEX uk_appointment_stylist_slot");
+            }
+            separateDuplicateSlots(jdbc);
+            jdbc.execute("ALTER TABLE appointment "
+                    + "ADD UNIQUE KEY uk_appointment_stylist_slot_chair (stylist_id, booked_slot, chair)");
+        }
+    }
+
+    /**
+     * Gives every row that shares (stylist_id, booked_slot, chair) with an
+     * older row the lowest chair still free at that start time. Each moved
+     * row is logged: the slot was double-booked and needs a human to look
+     * at it, but the bookings themselves are kept.
+     */
+    private static void separateDuplicateSlots(JdbcTemplate jdbc) {
+
+        // Every live row at a (stylist, start) that holds a duplicate chair
+        List<SlotRow> rows = jdbc.query(
+                "SELECT a.id, a.stylist_id, a.booked_slot, a.chair FROM appointment a "
+                + "JOIN (SELECT stylist_id, booked_slot FROM appointment "
+                + "      WHERE stylist_id IS NOT NULL AND booked_slot IS NOT NULL "
+                + "      GROUP BY stylist_id, booked_slot, chair HAVING COUNT(*) > 1) d "
+                + "ON d.stylist_id = a.stylist_id AND d.booked_slot = a.booked_slot "
+                + "ORDER BY a.stylist_id, a.booked_slot, a.id",
+                (rs, i) -> new SlotRow(rs.getLong(1), rs.getLong(2), rs.getTimestamp(3), rs.getInt(4)));
+
+        if (rows.isEmpty()) {
+            return;
+        }
+
+        Map<String, List<SlotRow>> bySlot = new HashMap<>();
+        for (SlotRow row : rows) {
+            bySlot.computeIfAbsent(row.stylistId() + "|" + row.slot(), k -> new ArrayList<>()).add(row);
+        }
+
+        int moved = 0;
+        for (List<SlotRow> group : bySlot.values()) {
+
+            // The oldest row keeps its chair; later ones on a taken chair move
+            Set<Integer> taken = new HashSet<>();
+            List<SlotRow> clashes = new ArrayList<>();
+            for (SlotRow row : group) {
+                if (!taken.add(row.chair())) {
+                    clashes.add(row);
+                }
+            }
+
+            int next = 0;
+            for (SlotRow row : clashes) {
+                while (taken.contains(next)) {
+                    next++;
+                }
+                taken.add(next);
+                jdbc.update("UPDATE appointment SET chair = ? WHERE id = ?", next, row.id());
+                log.warn("Appointment {} double-books stylist {} at {}: moved from chair {} to chair {}",
+                        row.id(), row.stylistId(), row.slot(), row.chair(), next);
+                moved++;
+            }
+        }
+
+        log.warn("{} appointment(s) shared a stylist and start time with another live booking "
+                + "and were moved to separate chairs; review them against stylist capacity", moved);
+    }
+
+    private static boolean columnExists(JdbcTemplate jdbc, String table, String column) {
+        Integer count = jdbc.queryForObject(
+                "SELECT COUNT(*) FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND COLUMN_NAME = ?",
+                Integer.class, table, column);
+        return count != null && count > 0;
+    }
+}
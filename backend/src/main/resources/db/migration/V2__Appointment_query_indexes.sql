@@ -0,0 +1,19 @@
+-- Composite indexes for the appointment range, booking and reminder queries.
+
+-- BookingGuardRepository: the booking guard reads the locked
+-- stylists' days (stylist_id IN (...) AND appointment_date range)
+CREATE INDEX idx_appointment_stylist_date
+    ON appointment (stylist_id, appointment_date);
+
+-- findSlotOccupancy day and range loads, findPageWithDetails keyset pages
+-- (InnoDB appends id, which the page order uses as its tiebreaker)
+CREATE INDEX idx_appointment_date
+    ON appointment (appointment_date);
+
+-- findUpcomingReminders: reminder_sent = 0 AND status = 'BOOKED' AND appointment_date > ?
+CREATE INDEX idx_appointment_reminder
+    ON appointment (reminder_sent, status, appointment_date);
+
+-- Dashboard history rows and aggregates: status = ? AND changed_at BETWEEN ...
+CREATE INDEX idx_history_status_changed
+    ON appointment_history (status, changed_at);
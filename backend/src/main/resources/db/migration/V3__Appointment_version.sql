@@ -0,0 +1,3 @@
+-- Optimistic lock column for Appointment; the status compare-and-set bumps it too.
+ALTER TABLE appointment
+    ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Per-day history totals behind the TODAY/MONTH/YEAR dashboards.
+-- entries: history rows recorded that day for the service and status.
+-- revenue: amounts of COMPLETED entries whose appointment is still COMPLETED.
+CREATE TABLE history_daily_rollup (
+    day DATE NOT NULL,
+    service_id BIGINT NOT NULL,
+    status VARCHAR(40) NOT NULL,
+    entries BIGINT NOT NULL DEFAULT 0,
+    revenue DOUBLE NOT NULL DEFAULT 0,
+    PRIMARY KEY (day, status, service_id)
+);
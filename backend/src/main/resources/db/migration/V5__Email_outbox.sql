@@ -0,0 +1,22 @@
+-- Outbound mail, written in the same transaction as the change that triggers it
+-- and delivered by EmailOutboxWorker.
+--
+-- status: PENDING -> SENDING -> SENT, or back to PENDING with a later
+-- next_attempt_at on failure, or FAILED once attempts run out. While SENDING,
+-- next_attempt_at is the claim lease; a worker that dies leaves the row to be
+-- claimed again once it passes.
+CREATE TABLE email_outbox (
+    id              BIGINT        NOT NULL AUTO_INCREMENT,
+    from_address    VARCHAR(255)  NULL,
+    to_address      VARCHAR(255)  NOT NULL,
+    subject         VARCHAR(500)  NOT NULL,
+    body            TEXT          NOT NULL,
+    status          VARCHAR(20)   NOT NULL DEFAULT 'PENDING',
+    attempts        INT           NOT NULL DEFAULT 0,
+    next_attempt_at DATETIME(6)   NOT NULL,
+    created_at      DATETIME(6)   NOT NULL,
+    sent_at         DATETIME(6)   NULL,
+    last_error      VARCHAR(1000) NULL,
+    PRIMARY KEY (id),
+    INDEX idx_email_outbox_due (status, next_attempt_at)
+);
@@ -0,0 +1,2 @@
+-- Optional HTML alternative; the text body is always sent as well.
+ALTER TABLE email_outbox ADD COLUMN html_body MEDIUMTEXT NULL AFTER body;
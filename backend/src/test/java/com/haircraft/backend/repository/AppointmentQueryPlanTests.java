@@ -0,0 +1,227 @@
+package com.haircraft.backend.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.boot.model.naming.CamelCaseToUnderscoresNamingStrategy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.orm.jpa.hibernate.SpringImplicitNamingStrategy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.orm.jpa.JpaTransactionManager;
+import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.orm.jpa.vendor.HibernateJpaVendorAdapter;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.dto.HistoryDashboardRow;
+import com.haircraft.backend.service.AvailabilityEngine;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Guards the query plans of the hot appointment queries.
+ *
+ * Builds the pre-Flyway schema, runs the migrations on top of it, seeds
+ * enough rows for the optimizer to care, then runs the real repository
+ * methods and checks that EXPLAIN of the SQL they sent picks the intended
+ * index with a range/ref access instead of a full scan.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class AppointmentQueryPlanTests {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0")
+            .withCommand("--performance-schema-max-sql-text-length=8192");
+
+    private static final LocalDateTime DAY = LocalDateTime.of(2026, 3, 2, 0, 0);
+
+    private static JdbcTemplate jdbc;
+
+    // Reads performance_schema, which the application user cannot
+    private static JdbcTemplate root;
+
+    private static AppointmentRepository appointmentRepo;
+    private static AppointmentHistoryRepository historyRepo;
+    private static BookingGuardRepository bookingGuard;
+    private static TransactionTemplate tx;
+
+    @BeforeAll
+    static void migrateAndSeed() {
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/explain-baseline.sql"))
+                .execute(dataSource);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        jdbc.update("INSERT INTO hair_services (name, duration_minutes) VALUES ('Cut', 30)");
+        for (int i = 1; i <= 8; i++) {
+            jdbc.update("INSERT INTO stylist (name) VALUES (?)", "Stylist " + i);
+        }
+        for (int i = 1; i <= 50; i++) {
+            jdbc.update("INSERT INTO users (name, email) VALUES (?, ?)", "User " + i, "user" + i + "@test.local");
+        }
+
+        String[] statuses = { "BOOKED", "COMPLETED", "CANCELLED", "COMPLETED" };
+        List<Object[]> rows = new ArrayList<>();
+        List<Object[]> history = new ArrayList<>();
+
+        // 8 stylists x 24 slots a day x 60 days
+        for (int day = 0; day < 60; day++) {
+            for (int slot = 0; slot < 24; slot++) {
+                for (int stylist = 1; stylist <= 8; stylist++) {
+                    LocalDateTime start = DAY.plusDays(day).plusHours(9).plusMinutes(30L * slot);
+                    String status = statuses[(day + slot + stylist) % statuses.length];
+                    rows.add(new Object[] {
+                            1L, (long) (1 + (day * 24 + slot + stylist) % 50), (long) stylist,
+                            Timestamp.valueOf(start), Timestamp.valueOf(start),
+                            Timestamp.valueOf(start.plusMinutes(30)), status
+                    });
+                }
+            }
+        }
+
+        jdbc.batchUpdate("""
+                INSERT INTO appointment (service_id, user_id, stylist_id,
+                    appointment_date, start_time, end_time, status)
+                VALUES (?, ?, ?, ?, ?, ?, ?)
+                """, rows);
+
+        jdbc.query("SELECT id, status, start_time FROM appointment", rs -> {
+            history.add(new Object[] { rs.getLong(1), rs.getString(2), rs.getTimestamp(3) });
+        });
+        jdbc.batchUpdate(
+                "INSERT INTO appointment_history (appointment_id, status, changed_at) VALUES (?, ?, ?)",
+                history);
+
+        jdbc.execute("ANALYZE TABLE appointment, appointment_history");
+
+        root = new JdbcTemplate(new DriverManagerDataSource(MYSQL.getJdbcUrl(), "root", MYSQL.getPassword()));
+
+        // Same naming as Spring Boot, so the generated SQL matches production
+        LocalContainerEntityManagerFactoryBean factory = new LocalContainerEntityManagerFactoryBean();
+        factory.setDataSource(dataSource);
+        factory.setPackagesToScan("com.haircraft.backend.Entity");
+        factory.setJpaVendorAdapter(new HibernateJpaVendorAdapter());
+        factory.setJpaPropertyMap(Map.of(
+                "hibernate.physical_naming_strategy", CamelCaseToUnderscoresNamingStrategy.class.getName(),
+                "hibernate.implicit_naming_strategy", SpringImplicitNamingStrategy.class.getName()));
+        factory.afterPropertiesSet();
+
+        EntityManagerFactory emf = factory.getObject();
+        JpaRepositoryFactory repositories =
+                new JpaRepositoryFactory(SharedEntityManagerCreator.createSharedEntityManager(emf));
+
+        appointmentRepo = repositories.getRepository(AppointmentRepository.class);
+        historyRepo = repositories.getRepository(AppointmentHistoryRepository.class);
+        tx = new TransactionTemplate(new JpaTransactionManager(emf));
+        bookingGuard = new BookingGuardRepository(jdbc);
+    }
+
+    @Test
+    void slotDayLoadRangeScansAppointmentDate() {
+        LocalDateTime day = DAY.plusDays(20);
+        assertPlan(
+                lastStatement(() -> appointmentRepo.findSlotOccupancy(
+                        day, day.plusDays(1), AvailabilityEngine.RELEASED_STATUSES)),
+                "idx_appointment_date");
+    }
+
+    @Test
+    void bookingGuardRangeScansStylistDate() {
+        LocalDateTime day = DAY.plusDays(20);
+        assertPlan(
+                lastStatement(() -> bookingGuard.lockStylistOccupancy(
+                        List.of(3L), day, day.plusDays(1), AvailabilityEngine.RELEASED_STATUSES)),
+                "idx_appointment_stylist_date");
+    }
+
+    @Test
+    void reminderSyncRangeScansReminderIndex() {
+        assertPlan(
+                lastStatement(() -> appointmentRepo.findUpcomingReminders(DAY.plusDays(55))),
+                "idx_appointment_reminder");
+    }
+
+    @Test
+    void reminderClaimLooksUpPrimaryKey() {
+        assertPlan(
+                lastStatement(() -> appointmentRepo.lockDueReminders(List.of(10L, 20L, 30L))),
+                "PRIMARY");
+    }
+
+    @Test
+    void adminPageRangeScansAppointmentDate() {
+        assertPlan(
+                lastStatement(() -> appointmentRepo.findPageWithDetails(
+                        null, null, DAY.plusDays(20), DAY.plusDays(27),
+                        DAY.plusDays(25), 5000L, PageRequest.of(0, 50))),
+                "idx_appointment_date");
+    }
+
+    @Test
+    void dashboardHistoryRangeScansStatusChanged() {
+        assertPlan(
+                lastStatement(() -> tx.executeWithoutResult(status -> {
+                    try (Stream<HistoryDashboardRow> rows = historyRepo.streamDashboardRows(
+                            List.of(AppointmentStatus.COMPLETED, AppointmentStatus.CANCELLED),
+                            DAY.plusDays(10), DAY.plusDays(17))) {
+                        rows.count();
+                    }
+                })),
+                "idx_history_status_changed");
+    }
+
+    /**
+     * Runs a repository call and returns the SQL it sent, with values
+     * inlined. The driver interpolates prepared-statement values client
+     * side, so performance_schema holds the exact text MySQL executed.
+     */
+    private static String lastStatement(Runnable query) {
+        query.run();
+        return root.queryForObject("""
+                SELECT SQL_TEXT FROM performance_schema.events_statements_history
+                WHERE THREAD_ID <> PS_CURRENT_THREAD_ID()
+                AND UPPER(SQL_TEXT) LIKE 'SELECT%APPOINTMENT%'
+                AND SQL_TEXT NOT LIKE '%@@%'
+                ORDER BY TIMER_START DESC
+                LIMIT 1
+                """, String.class);
+    }
+
+    private static void assertPlan(String sql, String expectedKey) {
+
+        List<Map<String, Object>> plan = jdbc.queryForList("EXPLAIN " + sql);
+
+        assertThat(plan).as("plan for %s", sql).anySatisfy(row -> {
+            assertThat(row.get("key")).isEqualTo(expectedKey);
+            assertThat(String.valueOf(row.get("type"))).isIn("range", "ref", "eq_ref", "const");
+        });
+    }
+}
@@ -0,0 +1,54 @@
+package com.haircraft.backend.scheduler;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+class TimingWheelTests {
+
+    // 1 ms ticks, 4 slots, 2 levels: level 0 spans 4 ticks, level 1 spans 16, beyond that overflows
+    private final TimingWheel<String> wheel = new TimingWheel<>(1, 4, 2, 0);
+
+    @Test
+    void firesEachTimerOnItsTickAcrossLevelsAndOverflow() {
+
+        wheel.schedule(1, 3, "level0");
+        wheel.schedule(2, 9, "level1");
+        wheel.schedule(3, 40, "overflow");
+
+        List<String> fired = new ArrayList<>();
+        for (long now = 1; now <= 40; now++) {
+            List<String> due = wheel.advanceTo(now);
+            if (!due.isEmpty()) {
+                fired.add(now + ":" + String.join(",", due));
+            }
+        }
+
+        assertThat(fired).containsExactly("3:level0", "9:level1", "40:overflow");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    void rescheduleReplacesAndCancelStops() {
+
+        wheel.schedule(1, 5, "first");
+        wheel.schedule(1, 12, "moved");
+        wheel.schedule(2, 6, "cancelled");
+        wheel.cancel(2);
+
+        assertThat(wheel.advanceTo(11)).isEmpty();
+        assertThat(wheel.advanceTo(12)).containsExactly("moved");
+    }
+
+    @Test
+    void pastDueTimerFiresOnNextAdvance() {
+
+        wheel.advanceTo(20);
+        wheel.schedule(7, 3, "late");
+
+        assertThat(wheel.advanceTo(21)).containsExactly("late");
+    }
+}
@@ -0,0 +1,72 @@
+package com.haircraft.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import com.haircraft.backend.Entity.Appointment;
+import com.haircraft.backend.Entity.AppointmentStatus;
+
+/**
+ * Transition table and hook dispatch of the appointment state machine.
+ */
+class AppointmentStateMachineTests {
+
+    @Test
+    void refundedIsTerminal() {
+        AppointmentStateMachine machine = new AppointmentStateMachine();
+
+        for (AppointmentStatus to : AppointmentStatus.values()) {
+            assertThat(machine.canTransition(AppointmentStatus.REFUNDED, to)).as("REFUNDED -> %s", to).isFalse();
+        }
+        assertThat(machine.canTransition(AppointmentStatus.CANCELLED, AppointmentStatus.BOOKED)).isFalse();
+        assertThat(machine.canTransition(AppointmentStatus.BOOKED, AppointmentStatus.COMPLETED)).isTrue();
+    }
+
+    @Test
+    void hooksRunInRegistrationOrderForTheirTargetsOnly() {
+        List<String> calls = new ArrayList<>();
+
+        AppointmentStateMachine machine = new AppointmentStateMachine()
+                .onEnter(EnumSet.of(AppointmentStatus.COMPLETED), (a, from, to) -> calls.add("first"))
+                .onEnter(EnumSet.allOf(AppointmentStatus.class), (a, from, to) -> calls.add("second:" + to))
+                .onEnter(EnumSet.of(AppointmentStatus.CANCELLED), (a, from, to) -> calls.add("cancelled"));
+
+        machine.fire(new Appointment(), AppointmentStatus.BOOKED, AppointmentStatus.COMPLETED);
+
+        assertThat(calls).containsExactly("first", "second:COMPLETED");
+    }
+
+    @Test
+    void forbiddenTransitionRunsNoHooks() {
+        List<String> calls = new ArrayList<>();
+
+        AppointmentStateMachine machine = new AppointmentStateMachine()
+                .onEnter(EnumSet.allOf(AppointmentStatus.class), (a, from, to) -> calls.add("hook"));
+
+        machine.fire(new Appointment(), AppointmentStatus.REFUNDED, AppointmentStatus.BOOKED);
+
+        assertThat(calls).isEmpty();
+    }
+
+    @Test
+    void failingHookPropagatesAndStopsLaterHooks() {
+        List<String> calls = new ArrayList<>();
+
+        AppointmentStateMachine machine = new AppointmentStateMachine()
+                .onEnter(EnumSet.of(AppointmentStatus.COMPLETED), (a, from, to) -> {
+                    throw new IllegalStateException("save failed");
+                })
+                .onEnter(EnumSet.of(AppointmentStatus.COMPLETED), (a, from, to) -> calls.add("after"));
+
+        assertThatThrownBy(() -> machine.fire(new Appointment(), AppointmentStatus.BOOKED, AppointmentStatus.COMPLETED))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("save failed");
+        assertThat(calls).isEmpty();
+    }
+}
@@ -0,0 +1,211 @@
+package com.haircraft.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.haircraft.backend.Entity.ServiceType;
+import com.haircraft.backend.Entity.Stylist;
+import com.haircraft.backend.dto.AvailableSlotDTO;
+import com.haircraft.backend.repository.AppointmentRepository;
+import com.haircraft.backend.repository.BookingGuardRepository;
+import com.haircraft.backend.repository.StylistRepository;
+
+/**
+ * Slot engine behaviour over a fake appointment table: bucket math,
+ * capacity and continuous services, reservation rollback, the next-slot
+ * search and the committed-rows backstop.
+ */
+class AvailabilityEngineTests {
+
+    private static final LocalDate DAY = LocalDate.now().plusDays(1);
+
+    // Rows as findSlotOccupancy returns them: id, stylist id, start, end, type, chair
+    private final List<Object[]> committed = new ArrayList<>();
+
+    private AvailabilityEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        AppointmentRepository appointmentRepo = mock(AppointmentRepository.class);
+        StylistRepository stylistRepo = mock(StylistRepository.class);
+        BookingGuardRepository bookingGuard = mock(BookingGuardRepository.class);
+
+        List<Stylist> stylists = List.of(stylist(1L, "Asha", 1), stylist(2L, "Ravi", 2));
+        when(stylistRepo.findAll()).thenReturn(stylists);
+        when(stylistRepo.findByActiveTrue()).thenReturn(stylists);
+
+        when(appointmentRepo.findSlotOccupancy(any(), any(), any()))
+                .thenAnswer(inv -> rowsBetween(inv.getArgument(0), inv.getArgument(1)));
+        when(bookingGuard.lockStylistOccupancy(any(), any(), any(), any()))
+                .thenAnswer(inv -> rowsBetween(inv.getArgument(1), inv.getArgument(2)));
+
+        engine = new AvailabilityEngine(appointmentRepo, stylistRepo, bookingGuard);
+    }
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void bookingsOverlapByBucketNotByMinute() {
+        assertThat(engine.tryReserve(1L, at(10, 0), at(10, 45), ServiceType.FIXED)).isNotNull();
+
+        // 10:45 ends inside the 10:30 bucket, so 10:30 and 10:45 starts collide
+        assertThat(engine.tryReserve(1L, at(10, 30), at(11, 0), ServiceType.FIXED)).isNull();
+        assertThat(engine.tryReserve(1L, at(10, 45), at(11, 15), ServiceType.FIXED)).isNull();
+
+        // 11:00 is the next bucket boundary
+        assertThat(engine.tryReserve(1L, at(11, 0), at(11, 30), ServiceType.FIXED)).isNotNull();
+        assertThat(engine.getBookedSlots(DAY, 1L)).containsExactly("10:00", "10:30", "11:00");
+    }
+
+    @Test
+    void continuousServiceNeedsAndTakesEveryChair() {
+        AvailabilityEngine.Reservation first = engine.tryReserve(2L, at(10, 0), at(11, 0), ServiceType.FIXED);
+        assertThat(first).isNotNull();
+
+        // One chair is busy, so a continuous service cannot start beside it
+        assertThat(engine.tryReserve(2L, at(10, 30), at(11, 30), ServiceType.CONTINUOUS)).isNull();
+
+        // A second fixed service fits on the other chair, a third does not
+        AvailabilityEngine.Reservation second = engine.tryReserve(2L, at(10, 0), at(11, 0), ServiceType.FIXED);
+        assertThat(second).isNotNull();
+        assertThat(second.chair()).isNotEqualTo(first.chair());
+        assertThat(engine.tryReserve(2L, at(10, 0), at(10, 30), ServiceType.FIXED)).isNull();
+
+        // On a free block the continuous service fills capacity on its own
+        assertThat(engine.tryReserve(2L, at(14, 0), at(15, 0), ServiceType.CONTINUOUS)).isNotNull();
+        assertThat(engine.tryReserve(2L, at(14, 30), at(15, 0), ServiceType.FIXED)).isNull();
+        assertThat(engine.getBookedSlots(DAY, 2L)).containsExactly("10:00", "10:30", "14:00", "14:30");
+    }
+
+    @Test
+    void rolledBackReservationGivesTheSlotBack() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        AvailabilityEngine.Reservation reservation =
+                engine.tryReserve(1L, at(10, 0), at(11, 0), ServiceType.FIXED);
+        engine.holdUntilCompletion(reservation, 100L);
+        assertThat(engine.tryReserve(1L, at(10, 30), at(11, 0), ServiceType.FIXED)).isNull();
+
+        completeTransaction(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(engine.getBookedSlots(DAY, 1L)).isEmpty();
+        assertThat(engine.tryReserve(1L, at(10, 0), at(11, 0), ServiceType.FIXED)).isNotNull();
+    }
+
+    @Test
+    void committedReservationKeepsTheSlot() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        AvailabilityEngine.Reservation reservation =
+                engine.tryReserve(1L, at(10, 0), at(11, 0), ServiceType.FIXED);
+        engine.holdUntilCompletion(reservation, 100L);
+
+        completeTransaction(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(engine.getBookedSlots(DAY, 1L)).containsExactly("10:00", "10:30");
+    }
+
+    @Test
+    void nextAvailableRollsPastMidnightIntoTomorrow() {
+        LocalDate today = LocalDate.now();
+        LocalDate tomorrow = today.plusDays(1);
+        committed.add(row(7L, 1L, tomorrow.atTime(9, 0), tomorrow.atTime(10, 0)));
+
+        // 20:45 leaves no room for an hour before closing; tomorrow opens booked until 10:00
+        List<AvailableSlotDTO> slots = engine.findNextAvailable(
+                today.atTime(20, 45), 60, ServiceType.FIXED, 1L, 2, 2);
+
+        assertThat(slots).extracting(AvailableSlotDTO::getDate, AvailableSlotDTO::getTime)
+                .containsExactly(
+                        tuple(tomorrow.toString(), "10:00"),
+                        tuple(tomorrow.toString(), "10:30"));
+    }
+
+    @Test
+    void committedRowsFromAnotherInstanceOverrideAStaleCache() {
+        AvailabilityEngine.Reservation reservation =
+                engine.tryReserve(1L, at(10, 0), at(11, 0), ServiceType.FIXED);
+        assertThat(reservation).isNotNull();
+
+        // Another replica committed an overlapping booking this cache never saw
+        committed.add(row(8L, 1L, at(10, 30), at(11, 0)));
+
+        assertThat(engine.verifyCommitted(List.of(reservation))).isNull();
+
+        // The stale day was dropped and reloads with the other booking
+        assertThat(engine.getBookedSlots(DAY, 1L)).containsExactly("10:30");
+    }
+
+    @Test
+    void verifyCommittedAssignsChairsAcrossOneBatch() {
+        AvailabilityEngine.Reservation a = engine.tryReserve(2L, at(12, 0), at(13, 0), ServiceType.FIXED);
+        AvailabilityEngine.Reservation b = engine.tryReserve(2L, at(12, 0), at(13, 0), ServiceType.FIXED);
+
+        int[] chairs = engine.verifyCommitted(List.of(a, b));
+
+        assertThat(chairs).hasSize(2);
+        assertThat(chairs[0]).isNotEqualTo(chairs[1]);
+    }
+
+    @Test
+    void reserveAnySkipsStylistsAlreadyTurnedDown() {
+        AvailabilityEngine.Reservation first = engine.tryReserveAny(at(16, 0), at(16, 30), ServiceType.FIXED);
+        engine.release(first);
+
+        AvailabilityEngine.Reservation next = engine.tryReserveAny(
+                at(16, 0), at(16, 30), ServiceType.FIXED, Set.of(first.stylistId()));
+
+        assertThat(next).isNotNull();
+        assertThat(next.stylistId()).isNotEqualTo(first.stylistId());
+        assertThat(engine.tryReserveAny(at(16, 0), at(16, 30), ServiceType.FIXED, Set.of(1L, 2L))).isNull();
+    }
+
+    private static void completeTransaction(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(status));
+    }
+
+    private List<Object[]> rowsBetween(LocalDateTime from, LocalDateTime to) {
+        return committed.stream()
+                .filter(r -> !((LocalDateTime) r[2]).isBefore(from) && ((LocalDateTime) r[2]).isBefore(to))
+                .toList();
+    }
+
+    private static Object[] row(Long id, Long stylistId, LocalDateTime start, LocalDateTime end) {
+        return new Object[] { id, stylistId, start, end, ServiceType.FIXED, 0 };
+    }
+
+    private static LocalDateTime at(int hour, int minute) {
+        return DAY.atTime(hour, minute);
+    }
+
+    private static Stylist stylist(Long id, String name, int capacity) {
+        Stylist s = new Stylist();
+        ReflectionTestUtils.setField(s, "id", id);
+        s.setName(name);
+        s.setCapacity(capacity);
+        return s;
+    }
+}
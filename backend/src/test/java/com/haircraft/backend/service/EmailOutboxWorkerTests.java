@@ -0,0 +1,126 @@
+package com.haircraft.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import com.haircraft.backend.repository.EmailOutboxRepository;
+import com.haircraft.backend.repository.EmailOutboxRepository.NewEmail;
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Runs the outbox worker against MySQL and a local GreenMail SMTP server:
+ * queued rows are delivered in one batch, and a mail server that cannot be
+ * reached leaves them pending with a backoff.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class EmailOutboxWorkerTests {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    @RegisterExtension
+    static final GreenMailExtension SMTP = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private static DriverManagerDataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private static EmailOutboxRepository outboxRepo;
+
+    @BeforeAll
+    static void migrate() {
+
+        dataSource = new DriverManagerDataSource(MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/explain-baseline.sql"))
+                .execute(dataSource);
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        outboxRepo = new EmailOutboxRepository(jdbc);
+    }
+
+    @BeforeEach
+    void clearOutbox() {
+        jdbc.update("DELETE FROM email_outbox");
+    }
+
+    @Test
+    void deliversQueuedMailInOneBatch() throws Exception {
+
+        for (int i = 1; i <= 3; i++) {
+            outboxRepo.enqueue(new NewEmail("HairCraft <noreply@test.local>", "user" + i + "@test.local",
+                    "Subject " + i, "Body " + i, i == 1 ? "<p>Body 1</p>" : null));
+        }
+
+        int claimed = worker(ServerSetupTest.SMTP.getPort()).drain();
+
+        assertThat(claimed).isEqualTo(3);
+
+        MimeMessage[] received = SMTP.getReceivedMessages();
+        assertThat(received).hasSize(3);
+        assertThat(received[0].getSubject()).isEqualTo("Subject 1");
+        assertThat(received[0].getContentType()).startsWith("multipart/");
+        assertThat(received[1].getContentType()).startsWith("text/plain");
+
+        assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM email_outbox WHERE status = 'SENT' AND sent_at IS NOT NULL", Long.class))
+                .isEqualTo(3L);
+    }
+
+    @Test
+    void unreachableServerSchedulesARetry() {
+
+        outboxRepo.enqueue(new NewEmail("HairCraft <noreply@test.local>", "user@test.local", "Subject", "Body", null));
+
+        EmailOutboxWorker worker = worker(ServerSetupTest.SMTP.getPort() + 1);
+        assertThat(worker.drain()).isEqualTo(1);
+
+        Map<String, Object> row = jdbc.queryForMap("SELECT status, attempts, next_attempt_at, last_error FROM email_outbox");
+        assertThat(row.get("status")).isEqualTo("PENDING");
+        assertThat(((Number) row.get("attempts")).intValue()).isEqualTo(1);
+        assertThat(toLocal(row.get("next_attempt_at"))).isAfter(LocalDateTime.now());
+        assertThat(row.get("last_error")).isNotNull();
+
+        // Backing off: nothing is due yet
+        assertThat(worker.drain()).isZero();
+        assertThat(SMTP.getReceivedMessages()).isEmpty();
+    }
+
+    private static EmailOutboxWorker worker(int smtpPort) {
+        JavaMailSenderImpl sender = new JavaMailSenderImpl();
+        sender.setHost("localhost");
+        sender.setPort(smtpPort);
+        return new EmailOutboxWorker(outboxRepo, sender, new DataSourceTransactionManager(dataSource), 1, 20, 8, 100);
+    }
+
+    private static LocalDateTime toLocal(Object value) {
+        return value instanceof Timestamp t ? t.toLocalDateTime() : (LocalDateTime) value;
+    }
+}
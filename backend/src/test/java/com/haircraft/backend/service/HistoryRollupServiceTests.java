@@ -0,0 +1,87 @@
+package com.haircraft.backend.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.haircraft.backend.Entity.AppointmentStatus;
+import com.haircraft.backend.Entity.ServiceType;
+import com.haircraft.backend.event.AppointmentHistoryRecordedEvent;
+import com.haircraft.backend.event.AppointmentSnapshot;
+import com.haircraft.backend.event.AppointmentStatusChangedEvent;
+import com.haircraft.backend.repository.HistoryRollupRepository;
+import com.haircraft.backend.repository.HistoryRollupRepository.Delta;
+
+/**
+ * Write-behind deltas around a window rebuild: events for rows the rebuild
+ * already counted are dropped, later ones are kept.
+ */
+class HistoryRollupServiceTests {
+
+    private static final LocalDateTime NOW = LocalDate.now().atTime(12, 0);
+
+    private HistoryRollupRepository rollupRepo;
+    private HistoryRollupService service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepo = mock(HistoryRollupRepository.class);
+        PlatformTransactionManager txManager = mock(PlatformTransactionManager.class);
+        when(txManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+
+        service = new HistoryRollupService(rollupRepo, txManager, 3);
+    }
+
+    @Test
+    void eventsTheRebuildAlreadyCountedAreDropped() {
+        when(rollupRepo.completedDays(any())).thenReturn(List.of(NOW.toLocalDate()));
+
+        // Snapshot saw history ids up to 10 and appointment 5 already cancelled
+        when(rollupRepo.rebuild(any(), any())).thenAnswer(inv -> {
+            service.onHistoryRecorded(completed(7L, 100.0));
+            service.onHistoryRecorded(completed(11L, 40.0));
+            return new HistoryRollupRepository.Rebuilt(1, 10L, Set.of(5L));
+        });
+
+        service.reconcileRecentDays();
+
+        service.onHistoryRecorded(completed(8L, 100.0));
+        service.onStatusChanged(reversal(5L, 100.0));
+        service.onStatusChanged(reversal(6L, 15.0));
+        service.flush();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Delta>> deltas = ArgumentCaptor.forClass(List.class);
+        verify(rollupRepo).addAll(deltas.capture());
+
+        assertThat(deltas.getValue()).singleElement().satisfies(d -> {
+            assertThat(d.entries()).isEqualTo(1);
+            assertThat(d.revenue()).isEqualTo(40.0 - 15.0);
+        });
+    }
+
+    private static AppointmentHistoryRecordedEvent completed(long historyId, double amount) {
+        return new AppointmentHistoryRecordedEvent(
+                historyId, 1000 + historyId, 1L, 1L, AppointmentStatus.COMPLETED, NOW, amount);
+    }
+
+    private static AppointmentStatusChangedEvent reversal(long appointmentId, double amount) {
+        AppointmentSnapshot snapshot = new AppointmentSnapshot(
+                appointmentId, 1L, 1L, 1L, NOW, NOW.plusMinutes(30),
+                AppointmentStatus.CANCELLED, amount, ServiceType.FIXED, 0, 60);
+        return new AppointmentStatusChangedEvent(snapshot, AppointmentStatus.COMPLETED);
+    }
+}
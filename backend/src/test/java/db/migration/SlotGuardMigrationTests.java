@@ -0,0 +1,72 @@
+package db.migration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+/**
+ * V1 over a database that already holds double bookings from before the
+ * slot guard existed.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SlotGuardMigrationTests {
+
+    @Container
+    static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0");
+
+    private static final Timestamp START = Timestamp.valueOf(LocalDateTime.of(2026, 3, 2, 10, 0));
+    private static final Timestamp END = Timestamp.valueOf(LocalDateTime.of(2026, 3, 2, 10, 30));
+
+    @Test
+    void duplicateLiveSlotsMoveToSeparateChairs() {
+
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword());
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        new ResourceDatabasePopulator(new ClassPathResource("db/explain-baseline.sql"))
+                .execute(dataSource);
+
+        jdbc.update("INSERT INTO hair_services (name) VALUES ('Cut')");
+        jdbc.update("INSERT INTO stylist (name) VALUES ('A'), ('B')");
+        jdbc.update("INSERT INTO users (name, email) VALUES ('U', 'u@test.local')");
+
+        String insert = "INSERT INTO appointment (service_id, user_id, stylist_id, "
+                + "appointment_date, start_time, end_time, status) VALUES (1, 1, ?, ?, ?, ?, ?)";
+        jdbc.update(insert, 1, START, START, END, "BOOKED");
+        jdbc.update(insert, 1, START, START, END, "COMPLETED");
+        jdbc.update(insert, 1, START, START, END, "CANCELLED");
+        jdbc.update(insert, 1, START, START, END, "CONFIRMED");
+        jdbc.update(insert, 2, START, START, END, "BOOKED");
+
+        Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("0")
+                .load()
+                .migrate();
+
+        List<Integer> stylistOne = jdbc.queryForList(
+                "SELECT chair FROM appointment WHERE stylist_id = 1 AND booked_slot IS NOT NULL ORDER BY id",
+                Integer.class);
+        Integer stylistTwo = jdbc.queryForObject(
+                "SELECT chair FROM appointment WHERE stylist_id = 2", Integer.class);
+
+        // Oldest keeps chair 0, the cancelled row holds no slot and is left alone
+        assertThat(stylistOne).containsExactly(0, 1, 2);
+        assertThat(stylistTwo).isZero();
+    }
+}
@@ -0,0 +1,56 @@
+-- Tables as they stood before Flyway took over the schema (pre-V1).
+CREATE TABLE hair_services (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255),
+    category VARCHAR(255),
+    price VARCHAR(255),
+    image VARCHAR(255),
+    badge VARCHAR(255),
+    duration_minutes INT NOT NULL DEFAULT 30
+);
+
+CREATE TABLE stylist (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255),
+    specialization VARCHAR(255),
+    active BIT NOT NULL DEFAULT 1,
+    capacity INT NOT NULL DEFAULT 1
+);
+
+CREATE TABLE users (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    name VARCHAR(255),
+    email VARCHAR(255) NOT NULL UNIQUE,
+    role VARCHAR(255),
+    status VARCHAR(255) NOT NULL DEFAULT 'ACTIVE'
+);
+
+CREATE TABLE appointment (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    service_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    stylist_id BIGINT,
+    appointment_date DATETIME(6) NOT NULL,
+    start_time DATETIME(6) NOT NULL,
+    end_time DATETIME(6) NOT NULL,
+    reminder_sent BIT NOT NULL DEFAULT 0,
+    reminder_minutes INT NOT NULL DEFAULT 60,
+    status VARCHAR(40) NOT NULL,
+    amount DOUBLE,
+    payment_status VARCHAR(255),
+    razorpay_payment_id VARCHAR(255),
+    refund_status VARCHAR(255),
+    refund_id VARCHAR(255),
+    created_at DATETIME(6),
+    CONSTRAINT fk_appointment_service FOREIGN KEY (service_id) REFERENCES hair_services (id),
+    CONSTRAINT fk_appointment_user FOREIGN KEY (user_id) REFERENCES users (id),
+    CONSTRAINT fk_appointment_stylist FOREIGN KEY (stylist_id) REFERENCES stylist (id)
+);
+
+CREATE TABLE appointment_history (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    appointment_id BIGINT NOT NULL,
+    status VARCHAR(40) NOT NULL,
+    changed_at DATETIME(6) NOT NULL,
+    CONSTRAINT fk_history_appointment FOREIGN KEY (appointment_id) REFERENCES appointment (id)
+);
@@ -3,24 +3,30 @@ import axios from "../../../../api/axios";
 import { toast } from "sonner";
 
 const SERVER_URL = import.meta.env.VITE_JAVA_SERVER;
+const PAGE_SIZE = 50;
 
 const Appointments = () => {
   const [appointments, setAppointments] = useState([]);
   const [loading, setLoading] = useState(false);
+  const [nextCursor, setNextCursor] = useState(null);
 
 
-  // LOAD APPOINTMENTS
-  const fetchAppointments = async () => {
+  // LOAD APPOINTMENTS (one page; pass the cursor to append the next one)
+  const fetchAppointments = async (cursor = null) => {
     try {
       setLoading(true);
 
-      const res = await axios.get("/api/admin/appointments");
+      const res = await axios.get("/api/admin/appointments/page", {
+        params: { limit: PAGE_SIZE, ...(cursor ? { cursor } : {}) }
+      });
 
-      setAppointments(Array.isArray(res.data) ? res.data : []);
+      const items = Array.isArray(res.data?.items) ? res.data.items : [];
+      setAppointments((prev) => (cursor ? [...prev, ...items] : items));
+      setNextCursor(res.data?.hasMore ? res.data.nextCursor : null);
     } catch (err) {
       console.error("Failed to load appointments", err);
       toast.error("Failed to load appointments");
-      setAppointments([]);
+      if (!cursor) setAppointments([]);
     } finally {
       setLoading(false);
     }
@@ -41,7 +47,7 @@ const Appointments = () => {
         prev.map((a) => (a.id === id ? { ...a, processing: true } : a))
       );
 
-      await axios.put(
+      const res = await axios.put(
         `/api/admin/appointments/${id}/status`,
         {},
         {
@@ -50,7 +56,9 @@ const Appointments = () => {
       );
 
       toast.success("Status updated successfully", { id: toastId });
-      fetchAppointments();
+      setAppointments((prev) =>
+        prev.map((a) => (a.id === id ? { ...res.data, processing: false } : a))
+      );
     } catch (err) {
       console.error("Status update failed", err);
       const msg = err.response?.data?.message || err.message || "Unknown error";
@@ -93,7 +101,7 @@ const Appointments = () => {
           </p>
         </div>
         <button
-          onClick={fetchAppointments}
+          onClick={() => fetchAppointments()}
           className="p-2 bg-gray-50 rounded-full hover:bg-gray-100 transition"
           title="Refresh"
         >
@@ -236,6 +244,17 @@ const Appointments = () => {
           );
         })}
       </div>
+
+      {nextCursor && !loading && (
+        <div className="flex justify-center">
+          <button
+            onClick={() => fetchAppointments(nextCursor)}
+            className="px-5 py-2 text-sm font-medium bg-white border border-gray-200 rounded-full hover:bg-gray-50 transition"
+          >
+            Load more
+          </button>
+        </div>
+      )}
     </div>
   );
 };